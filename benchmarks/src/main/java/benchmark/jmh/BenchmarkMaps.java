@@ -0,0 +1,46 @@
+package benchmark.jmh;
+
+import helper.Map;
+import helper.Position;
+import helper.SimulationRandom;
+
+import java.util.Random;
+
+/* Maps and positions shared by the benchmarks, always generated from the same seed so that
+   runs of different versions of the code measure the same maps */
+final class BenchmarkMaps {
+
+    static final long SEED = SimulationRandom.DEFAULT_SEED;
+
+    private BenchmarkMaps() {}
+
+    /* size x size map with the given fractions of its cells holding items and traps (at least one item) */
+    static Map create(int size, double itemDensity, double trapDensity) throws Exception
+    {
+        int numCells = size * size;
+        int numItems = Math.max(1, (int) (numCells * itemDensity));
+        int numTraps = (int) (numCells * trapDensity);
+        return new Map(size, size, numItems, numTraps, new SimulationRandom(SEED));
+    }
+
+    /* Random positions inside the map, traps and items included */
+    static Position[] randomPositions(Map map, int howMany)
+    {
+        Random random = new Random(SEED);
+        Position[] positions = new Position[howMany];
+        for (int k = 0; k < howMany; k++)
+            positions[k] = new Position(random.nextInt(map.getNumRows()), random.nextInt(map.getNumCols()));
+
+        return positions;
+    }
+
+    /* Random empty positions of the map */
+    static Position[] emptyPositions(Map map, int howMany)
+    {
+        Position[] positions = new Position[howMany];
+        for (int k = 0; k < howMany; k++)
+            positions[k] = map.searchRandomEmtpyPosition();
+
+        return positions;
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark.jmh;
+
+import helper.Map;
+import helper.Position;
+import helper.SimulationState;
+import helper.SimulationStateDelta;
+import helper.StateCodec;
+import jade.lang.acl.ACLMessage;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Payloads of the simulation protocol going through an ACLMessage exactly as the agents send
+   them (content written, then read back), with Java serialization or StateCodec's binary
+   encoding: a position, a delta clearing one item, and full states of maps of different sizes
+   (with size / 2 items and size traps) */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param({ "position", "delta", "state-10", "state-100", "state-1000" })
+    String payload;
+
+    @Param({ "false", "true" })
+    boolean binary;
+
+    private Serializable content;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        switch (payload)
+        {
+            case "position":
+                content = new Position(7, 3);
+                break;
+            case "delta":
+                LinkedList<Position> cleared = new LinkedList<Position>();
+                cleared.add(new Position(7, 3));
+                content = new SimulationStateDelta(new Position(7, 3), cleared);
+                break;
+            default:
+                int size = Integer.parseInt(payload.substring("state-".length()));
+                Map map = BenchmarkMaps.create(size, 0.5 / size, 1.0 / size);
+                content = new SimulationState(map, map.searchRandomEmtpyPosition());
+        }
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception
+    {
+        ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+        StateCodec.writeContent(msg, content, binary);
+        return StateCodec.readContent(msg);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark.jmh;
+
+import config.SimulationConfig;
+import helper.MapNavigator;
+import helper.Participant;
+import helper.Position;
+import helper.SimulationEngine;
+import jade.core.AID;
+
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* One round of the simulator's side of the simulation for a number of participants: every
+   participant proposes a random neighbouring position, which SimulationEngine resolves
+   (collisions, items, traps, state updates). Decisions of real planners are measured in
+   PlannerBenchmark, here they are kept as cheap as possible */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+    @Param({ "64", "256" })
+    int size;
+
+    @Param({ "0.01" })
+    double itemDensity;
+
+    @Param({ "0.0", "0.1" })
+    double trapDensity;
+
+    @Param({ "1", "10", "100", "1000" })
+    int participants;
+
+    private SimulationEngine engine;
+    private MapNavigator navigator = new MapNavigator();
+    private Random random = new Random(BenchmarkMaps.SEED);
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        SimulationConfig config = new SimulationConfig();
+        config.numRows = size;
+        config.numCols = size;
+        config.numItems = Math.max(1, (int) (size * size * itemDensity));
+        config.numTraps = (int) (size * size * trapDensity);
+        config.numStepsMapReDist = Integer.MAX_VALUE; // no redistributions, see MapBenchmark
+        config.seed = BenchmarkMaps.SEED;
+        engine = new SimulationEngine(config);
+
+        for (int k = 0; k < participants; k++)
+            engine.addParticipant(new AID("Participant_" + k + "@benchmark", AID.ISGUID), 1 + k % 20);
+    }
+
+    @Benchmark
+    public int round()
+    {
+        for (Participant participant : engine.getParticipants())
+        {
+            Position position = participant.getSimulationState().getPosition();
+            LinkedList<Position> moves = navigator.getNextPossiblePositions(engine.getCurrentMap(), position);
+            Position next = moves.isEmpty() ? position : moves.get(random.nextInt(moves.size()));
+            engine.processAction(next, participant);
+        }
+        engine.endRound();
+        return engine.getRoundCount();
+    }
+}
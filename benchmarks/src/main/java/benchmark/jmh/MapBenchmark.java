@@ -0,0 +1,108 @@
+package benchmark.jmh;
+
+import helper.Map;
+import helper.Position;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Basic operations of helper.Map. isItemPosition is measured over a batch of random positions,
+   so its score is per batch of PROBES queries. getItemPositions moves an item first, so that it
+   measures building the view rather than returning the cached one */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapBenchmark {
+
+    static final int PROBES = 1024;
+
+    @Param({ "64", "256", "1024" })
+    int size;
+
+    @Param({ "0.001", "0.01" })
+    double itemDensity;
+
+    @Param({ "0.0", "0.1" })
+    double trapDensity;
+
+    private Map map;
+    private Position[] probes;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        map = BenchmarkMaps.create(size, itemDensity, trapDensity);
+        probes = BenchmarkMaps.randomPositions(map, PROBES);
+    }
+
+    @Benchmark
+    public Map construction() throws Exception
+    {
+        return BenchmarkMaps.create(size, itemDensity, trapDensity);
+    }
+
+    @Benchmark
+    public LinkedList<Position> getItemPositions()
+    {
+        // the view left by the previous call, then dropped by the change of items
+        Position item = map.getItemPositions().getFirst();
+        map.clearPosition(item);
+        map.generateNewItem();
+        return map.getItemPositions();
+    }
+
+    @Benchmark
+    public int isItemPosition()
+    {
+        int items = 0;
+        for (Position probe : probes)
+        {
+            if (map.isItemPosition(probe))
+                items++;
+        }
+        return items;
+    }
+
+    /* Map to clone, created anew for each call: cloning makes the source give up its chunks,
+       so cloning the same map again would start from a different state every time */
+    @State(Scope.Thread)
+    public static class CloneSource {
+
+        Map map;
+
+        @Setup(Level.Invocation)
+        public void setUp(MapBenchmark benchmark) throws Exception
+        {
+            map = BenchmarkMaps.create(benchmark.size, benchmark.itemDensity, benchmark.trapDensity);
+        }
+    }
+
+    @Benchmark
+    public Object cloneMap(CloneSource source) throws CloneNotSupportedException
+    {
+        return source.map.clone();
+    }
+
+    @Benchmark
+    public Map redistributeMap()
+    {
+        map.redistributeMap();
+        return map;
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark.jmh;
+
+import agents.AStarPlanner;
+import agents.JPSPlanner;
+import helper.HierarchicalMap;
+import helper.Map;
+import helper.Position;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Plain A* (AStarPlanner) against Jump Point Search (JPSPlanner) and HPA* (HierarchicalMap) on
+   large maps, over the same fixed list of start/goal pairs. HPA* is measured as a planner uses
+   it: an abstract search plus the refinement of the first leg; building its hierarchy is
+   measured apart */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathfindingBenchmark {
+
+    static final int POSITIONS = 64;
+
+    @Param({ "256", "512", "1024", "2048" })
+    int size;
+
+    @Param({ "0.0", "0.1", "0.25" })
+    double trapDensity;
+
+    private Map map;
+    private Position[] starts;
+    private Position[] goals;
+    private int next;
+
+    private AStarPlanner aStar = new AStarPlanner();
+    private JPSPlanner jps = new JPSPlanner();
+    private HierarchicalMap hierarchy;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        map = BenchmarkMaps.create(size, 0, trapDensity);
+        starts = BenchmarkMaps.emptyPositions(map, POSITIONS);
+        goals = BenchmarkMaps.emptyPositions(map, POSITIONS);
+        hierarchy = new HierarchicalMap(map);
+    }
+
+    private int nextIndex()
+    {
+        next = (next + 1) % POSITIONS;
+        return next;
+    }
+
+    @Benchmark
+    public LinkedList<Position> aStar()
+    {
+        int k = nextIndex();
+        return aStar.findPath(map, starts[k], goals[k]);
+    }
+
+    @Benchmark
+    public LinkedList<Position> jps()
+    {
+        int k = nextIndex();
+        return jps.findPath(map, starts[k], goals[k]);
+    }
+
+    @Benchmark
+    public LinkedList<Position> hpaStar()
+    {
+        int k = nextIndex();
+        LinkedList<Position> goal = new LinkedList<Position>();
+        goal.add(goals[k]);
+        LinkedList<Integer> waypoints = hierarchy.findAbstractPath(starts[k], goal);
+        return waypoints == null ? null : hierarchy.refine(starts[k], waypoints.getFirst());
+    }
+
+    @Benchmark
+    public HierarchicalMap buildHierarchy()
+    {
+        return new HierarchicalMap(map);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark.jmh;
+
+import agents.AStarPlanner;
+import agents.GreedyPlanner;
+import helper.Map;
+import helper.MapNavigator;
+import helper.Position;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Searches of the planners and the MapNavigator they rely on. Each call takes the next start
+   (and goal) from a fixed list of empty positions, so every run measures the same searches:
+   GreedyPlanner's BFS towards the closest item, and AStarPlanner's A* between two positions */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlannerBenchmark {
+
+    static final int POSITIONS = 64;
+
+    @Param({ "64", "256", "1024" })
+    int size;
+
+    @Param({ "0.001", "0.01" })
+    double itemDensity;
+
+    @Param({ "0.0", "0.1", "0.25" })
+    double trapDensity;
+
+    private Map map;
+    private Position[] starts;
+    private Position[] goals;
+    private int next;
+
+    private MapNavigator navigator = new MapNavigator();
+    private GreedyPlanner greedy = new GreedyPlanner();
+    private AStarPlanner aStar = new AStarPlanner();
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        map = BenchmarkMaps.create(size, itemDensity, trapDensity);
+        starts = BenchmarkMaps.emptyPositions(map, POSITIONS);
+        goals = BenchmarkMaps.emptyPositions(map, POSITIONS);
+    }
+
+    private int nextIndex()
+    {
+        next = (next + 1) % POSITIONS;
+        return next;
+    }
+
+    @Benchmark
+    public LinkedList<Position> getNextPossiblePositions()
+    {
+        return navigator.getNextPossiblePositions(map, starts[nextIndex()]);
+    }
+
+    @Benchmark
+    public LinkedList<Position> greedyBfs()
+    {
+        return greedy.findPathToClosestItem(map, starts[nextIndex()]);
+    }
+
+    @Benchmark
+    public LinkedList<Position> aStar()
+    {
+        int k = nextIndex();
+        return aStar.findPath(map, starts[k], goals[k]);
+    }
+}
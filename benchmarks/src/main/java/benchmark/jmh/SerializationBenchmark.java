@@ -0,0 +1,89 @@
+package benchmark.jmh;
+
+import helper.Map;
+import helper.SimulationState;
+import helper.StateCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Encoding and decoding of a full SimulationState, as sent to participants when they join and
+   on every commitment refresh: Java serialization against StateCodec */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({ "64", "256", "1024" })
+    int size;
+
+    @Param({ "0.001", "0.01" })
+    double itemDensity;
+
+    @Param({ "0.0", "0.1" })
+    double trapDensity;
+
+    private SimulationState state;
+    private byte[] serialized;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        Map map = BenchmarkMaps.create(size, itemDensity, trapDensity);
+        state = new SimulationState(map, map.searchRandomEmtpyPosition());
+        serialized = javaSerialize();
+        encoded = codecEncode();
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(state);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaDeserialize() throws IOException, ClassNotFoundException
+    {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized)))
+        {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] codecEncode()
+    {
+        return StateCodec.encode(state);
+    }
+
+    @Benchmark
+    public Object codecDecode()
+    {
+        return StateCodec.decode(encoded);
+    }
+}
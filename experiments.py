@@ -10,20 +10,22 @@ Usage:
     python run_experiments.py --scenario 3   # Dynamic world, no traps
     python run_experiments.py --scenario 4   # Dynamic world, 10 traps
     python run_experiments.py                # Runs all 4 scenarios (slow!)
+    python run_experiments.py --headless     # Same, in-process without JADE (fast)
 
 Each repetition uses seed = (scenario_id * 1000 + rep), so results are
 varied across reps but fully reproducible if you run the script again.
 
 Requires:
-  - Modified Config.java       (mutable SEED / USE_SEED)
-  - Modified SimulatorAgent.java (4th arg = seed)
+  - SimulatorAgent.java (4th arg = seed, every random choice of the simulation derives from it)
   Recompile with:
-    javac -d classes -cp "lib/jade.jar:src" src/helper/*.java src/agents/*.java src/config/*.java
+    javac -d classes -cp "lib/jade.jar:src" src/config/*.java src/helper/*.java src/agents/*.java src/benchmark/*.java
 """
 
 import subprocess
 import re
 import os
+import json
+import tempfile
 import argparse
 import platform
 from collections import defaultdict
@@ -35,6 +37,7 @@ from typing import Dict, List, Tuple, Optional
 IS_WINDOWS = platform.system() == "Windows"
 JADE_CP = r"lib\jade.jar;classes" if IS_WINDOWS else "lib/jade.jar:classes"
 NUM_REPS = 10  # repetitions per configuration
+HEADLESS = False  # run helper.HeadlessSimulation instead of booting JADE
 TIMEOUT_SEC = 360  # max seconds per single run
 
 AGENT_TYPES = ["Random", "Greedy", "AStar"]
@@ -56,12 +59,14 @@ def build_agent_string(
     num_traps: int,
     redistrib_every: int,
     seed: int,
+    results_path: str,
 ) -> str:
-    """Build the JADE -agents string, including the seed as the 4th Simulator arg."""
+    """Build the JADE -agents string, including the seed as the 4th Simulator arg
+    and the file where the simulator writes the final results."""
     num_participants = len(agent_configs)
     simulator = (
         f"Simulator:helper.SimulatorAgent"
-        f"({num_traps},{redistrib_every},{num_participants},{seed})"
+        f"({num_traps},{redistrib_every},{num_participants},{seed},results={results_path})"
     )
     parts = [simulator]
     for i, (agent_type, commitment) in enumerate(agent_configs, start=1):
@@ -71,7 +76,8 @@ def build_agent_string(
 
 def run_simulation(agent_string: str) -> str:
     """Run one simulation, return combined stdout+stderr."""
-    cmd = ["java", "-cp", JADE_CP, "jade.Boot", "-agents", agent_string]
+    main_class = "helper.HeadlessSimulation" if HEADLESS else "jade.Boot"
+    cmd = ["java", "-cp", JADE_CP, main_class, "-agents", agent_string]
     try:
         result = subprocess.run(
             cmd,
@@ -89,24 +95,21 @@ def run_simulation(agent_string: str) -> str:
         return ""
 
 
-def parse_final_scores(output: str) -> Dict[str, int]:
+def parse_final_scores(results_path: str) -> Dict[str, int]:
     """
-    Extract final scores from the last 'SIMULATION ENDED!!!' block.
-    Participant.toString() prints:
-        Name: <agentLocalName>
-        ...
-        Score: <int>
+    Read final scores from the results file the simulator writes (results= option),
+    one JSON object per line:
+        {"record": "participant", "name": <agentLocalName>, ..., "score": <int>, ...}
+        {"record": "simulation", ...}
     """
-    marker = "SIMULATION ENDED!!!"
-    idx = output.rfind(marker)
-    section = output[idx:] if idx != -1 else output
-
     scores: Dict[str, int] = {}
-    for name, score in re.findall(
-        r"Name:\s*(\S+).*?Score:\s*(-?\d+)", section, re.DOTALL
-    ):
-        if "Simulator" not in name:
-            scores[name] = int(score)
+    if not os.path.exists(results_path):
+        return scores
+    with open(results_path) as f:
+        for line in f:
+            record = json.loads(line)
+            if record.get("record") == "participant":
+                scores[record["name"]] = record["score"]
     return scores
 
 
@@ -128,17 +131,18 @@ def run_config(
 
     for rep in range(1, NUM_REPS + 1):
         seed = scenario_id * 100_000 + config_index * 1_000 + rep
+        results_path = os.path.join(tempfile.gettempdir(), f"item_world_results_{seed}.jsonl")
+        if os.path.exists(results_path):
+            os.remove(results_path)
         agent_string = build_agent_string(
-            agent_configs, num_traps, redistrib_every, seed
+            agent_configs, num_traps, redistrib_every, seed, results_path
         )
         print(f"      rep {rep:2d}/{NUM_REPS}  seed={seed}  ... ", end="", flush=True)
 
-        output = run_simulation(agent_string)
-        if not output:
-            print("no output", flush=True)
-            continue
-
-        scores = parse_final_scores(output)
+        run_simulation(agent_string)
+        scores = parse_final_scores(results_path)
+        if os.path.exists(results_path):
+            os.remove(results_path)
         if not scores:
             print("no scores parsed", flush=True)
             continue
@@ -254,7 +258,7 @@ def run_scenario(scenario_id: int) -> None:
 
 
 def main():
-    global NUM_REPS
+    global NUM_REPS, HEADLESS
 
     parser = argparse.ArgumentParser(
         description="Item World experiment runner",
@@ -270,6 +274,7 @@ Examples:
   python run_experiments.py -s 1           # scenario 1, 10 reps
   python run_experiments.py -s 2 -r 3     # scenario 2, only 3 reps (quick test)
   python run_experiments.py                # all 4 scenarios
+  python run_experiments.py --headless     # all 4 scenarios, without JADE
         """,
     )
     parser.add_argument(
@@ -286,9 +291,15 @@ Examples:
         default=NUM_REPS,
         help=f"Number of repetitions per configuration (default: {NUM_REPS})",
     )
+    parser.add_argument(
+        "--headless",
+        action="store_true",
+        help="Run the simulations in-process without the JADE platform",
+    )
     args = parser.parse_args()
 
     NUM_REPS = args.reps
+    HEADLESS = args.headless
 
     if args.scenario:
         run_scenario(args.scenario)
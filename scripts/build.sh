@@ -1 +1 @@
-javac -d classes -cp "lib/jade.jar:src" src/helper/*.java src/agents/*.java
+javac -d classes -cp "lib/jade.jar:src" src/config/*.java src/helper/*.java src/agents/*.java
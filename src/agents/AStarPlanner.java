@@ -0,0 +1,171 @@
+package agents;
+
+import helper.DecisionMaker;
+import helper.IndexedMinHeap;
+import helper.Map;
+import helper.MapNavigator;
+import helper.Position;
+import helper.SimulationState;
+import java.util.LinkedList;
+
+/* Heads for the closest item (in A* path length, avoiding known traps) and follows that path
+   until the item disappears or a trap shows up in the way */
+public class AStarPlanner implements DecisionMaker {
+
+    private MapNavigator navigator = new MapNavigator();
+    private LinkedList<Position> currentPlan = new LinkedList<>();
+    private Position currentTarget; 
+
+    // Search state reused across aStar calls: gScore/parent are only meaningful for cells
+    // whose seenMark equals the current searchMark, and closedMark marks expanded cells.
+    // Shared with subclasses searching paths differently (JPSPlanner)
+    protected IndexedMinHeap openSet;
+    protected int[] gScore;
+    protected int[] parent;
+    protected int[] seenMark;
+    protected int[] closedMark;
+    protected int searchMark;
+    protected int expandedCells; // cells expanded by the last search
+    private int[] neighbors = new int[4];
+
+    public int manhattanDistance(Position pos1, Position pos2) {
+        return Math.abs(pos1.x - pos2.x) + Math.abs(pos1.y - pos2.y);
+    }
+
+
+    private int heuristic(Position current, Position goal) {
+        return manhattanDistance(current, goal);
+    }
+
+    private int heuristic(int row, int col, Position goal) {
+        return Math.abs(row - goal.x) + Math.abs(col - goal.y);
+    }
+
+    private LinkedList<Position> reconstructPath(Map map, int current){
+        LinkedList<Position> total_path = new LinkedList<>();
+        for (; current != -1; current = parent[current])
+            total_path.addFirst(map.positionOf(current));
+        return total_path;
+    }    
+
+    protected void ensureCapacity(int numCells) {
+        if (openSet == null || openSet.capacity() != numCells) {
+            openSet = new IndexedMinHeap(numCells);
+            gScore = new int[numCells];
+            parent = new int[numCells];
+            seenMark = new int[numCells];
+            closedMark = new int[numCells];
+            searchMark = 0;
+        }
+    }
+
+    /* A* over cell ids with an indexed heap: a cell already in the open set gets its key
+       decreased instead of being queued again. Keys order by f, then by h so that ties
+       favour cells closer to the goal */
+    private LinkedList<Position> aStar(Map map, Position initialPosition, Position goalPosition) {
+        int numCols = map.getNumCols();
+        ensureCapacity(map.getNumRows() * numCols);
+        searchMark++;
+        openSet.clear();
+        expandedCells = 0;
+
+        int start = map.cellId(initialPosition);
+        int goal = map.cellId(goalPosition);
+        gScore[start] = 0;
+        parent[start] = -1;
+        seenMark[start] = searchMark;
+        openSet.update(start, key(0, heuristic(initialPosition, goalPosition)));
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (current == goal) {
+                return reconstructPath(map, current);
+            }
+            closedMark[current] = searchMark;
+            expandedCells++;
+
+            int numNeighbors = navigator.getNextPossibleCells(map, current, neighbors);
+            for (int k = 0; k < numNeighbors; k++) {
+                int neighbor = neighbors[k];
+                if (map.isTrapCell(neighbor) || closedMark[neighbor] == searchMark) {
+                    continue;
+                }
+                int tentativeScore = gScore[current] + 1;
+                if (seenMark[neighbor] != searchMark || tentativeScore < gScore[neighbor]) {
+                    seenMark[neighbor] = searchMark;
+                    parent[neighbor] = current;
+                    gScore[neighbor] = tentativeScore;
+                    openSet.update(neighbor, key(tentativeScore, heuristic(neighbor / numCols, neighbor % numCols, goalPosition)));
+                }
+            }
+        }
+        return null;
+    }
+
+    /* Open set key of a cell: by f = g + h, then by h */
+    protected static long key(int g, int h) {
+        return ((long) (g + h) << 32) | h;
+    }
+
+    /* Shortest path from "from" to "to" avoiding traps, both ends included, or null if there is none */
+    public LinkedList<Position> findPath(Map map, Position from, Position to) {
+        return aStar(map, from, to);
+    }
+
+    /* Number of nodes the last findPath call expanded */
+    public int getExpandedCells() {
+        return expandedCells;
+    }
+
+    public Position makeDecision(SimulationState myState) {
+        Position currentPosition = myState.getPosition();
+        Map currentMap = myState.getMap();
+
+        LinkedList<Position> items = currentMap.getItemPositions();
+
+        boolean shouldReplan = currentPlan.isEmpty()
+                || currentTarget == null
+                || !currentMap.isItemPosition(currentTarget)
+                || (!currentPlan.isEmpty() && currentMap.isTrapPosition(currentPlan.getFirst()));
+
+        if (shouldReplan) {
+            currentPlan.clear();
+            currentTarget = null;
+
+            LinkedList<Position> bestPath = null;
+            int bestDistance = Integer.MAX_VALUE;
+
+            for (Position itemPos: items) {
+                LinkedList<Position> path = findPath(currentMap, currentPosition, itemPos);
+
+                if (path != null && path.size() < bestDistance) {
+                    bestDistance = path.size();
+                    bestPath = path;
+                    currentTarget = itemPos;
+                }
+            }
+
+            if (bestPath != null && bestPath.size() > 1) {
+                bestPath.removeFirst();
+                currentPlan = new LinkedList<>(bestPath);
+            }
+        }
+
+        if (!currentPlan.isEmpty()) {
+            Position next = currentPlan.removeFirst();
+            LinkedList<Position> validMoves = navigator.getNextPossiblePositions(currentMap, currentPosition);
+
+            if (validMoves.contains(next)) {
+                if (currentMap.isItemPosition(next)) {
+                    currentTarget = null;
+                    currentPlan.clear();
+                }
+                return next;
+            } else {
+                currentPlan.clear();
+                currentTarget = null;
+            }
+        }
+        return currentPosition;
+    }
+}
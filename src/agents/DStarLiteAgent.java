@@ -0,0 +1,12 @@
+package agents;
+
+import helper.DecisionMaker;
+
+/* Participant heading to the closest item like AStarAgent, repairing its previous search
+   when the map changes instead of planning again from scratch, see DStarLitePlanner */
+public class DStarLiteAgent extends ParticipantAgent {
+
+    protected DecisionMaker createDecisionMaker() {
+        return new DStarLitePlanner();
+    }
+}
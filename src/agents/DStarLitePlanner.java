@@ -0,0 +1,255 @@
+package agents;
+
+import helper.DecisionMaker;
+import helper.IndexedMinHeap;
+import helper.Map;
+import helper.MapNavigator;
+import helper.Position;
+import helper.SimulationState;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/* Heads for the closest item (in path length, avoiding known traps) like AStarPlanner, but
+   keeps its search between turns and only repairs it where the map changed (D* Lite).
+
+   The search runs backwards from every item at once (all of them are goals) towards our
+   position, so g[cell] ends up as the distance from that cell to its closest item. When items
+   disappear or traps move, only the cells around those changes are updated and the part of the
+   distance field that depends on them is recomputed; the rest of the previous search is reused.
+   Each turn we step to the neighbour closest to an item, ties going to the navigator's order.
+
+   Between full updates the map may be stale: a move can be refused because of a trap we do not
+   know about or another participant standing there. A cell where our move bounced is treated as
+   a trap until the map is refreshed, so that we head somewhere else instead of proposing it again */
+public class DStarLitePlanner implements DecisionMaker {
+
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    private MapNavigator navigator = new MapNavigator();
+
+    // Search state over cell ids (row * numCols + col), kept across turns. A cell is locally
+    // inconsistent (and queued) while g != rhs, rhs being the one-step lookahead of g
+    private int numRows = -1;
+    private int numCols = -1;
+    private int[] g;
+    private int[] rhs;
+    private IndexedMinHeap openSet;
+    private int km; // key modifier: sum of the heuristic distances moved since the search started
+    private int lastStart = -1;
+
+    // Item and trap cells the search currently accounts for, in increasing order
+    private int[] knownItems = new int[0];
+    private int[] knownTraps = new int[0];
+
+    // Cells where a move bounced since the map was last refreshed, searched around like traps
+    private boolean[] blocked;
+    private LinkedList<Integer> blockedCells = new LinkedList<>();
+    private Map lastMap;
+    private int lastProposal = -1;
+
+    private int[] neighbors = new int[4];
+    private int[] predecessors = new int[4];
+
+    public Position makeDecision(SimulationState myState) {
+        Position currentPosition = myState.getPosition();
+        Map currentMap = myState.getMap();
+
+        if (!currentMap.withinMapLimits(currentPosition))
+            return currentPosition;
+
+        int start = currentMap.cellId(currentPosition);
+        if (currentMap.getNumRows() != numRows || currentMap.getNumCols() != numCols) {
+            initialize(currentMap, start);
+        } else {
+            // still where we were, though we asked to move: the simulator refused the move
+            boolean bounced = lastProposal != -1 && start == lastStart && lastProposal != start;
+
+            updateChangedCells(currentMap, start);
+            if (currentMap != lastMap) {
+                // full update, the reasons of past bounces may be gone
+                for (int cell : blockedCells)
+                    setBlocked(currentMap, cell, false, start);
+                blockedCells.clear();
+            } else if (bounced && !blocked[lastProposal]) {
+                setBlocked(currentMap, lastProposal, true, start);
+                blockedCells.add(lastProposal);
+            }
+        }
+        lastMap = currentMap;
+        lastProposal = -1;
+
+        computeShortestPath(currentMap, start);
+
+        if (rhs[start] >= INFINITY || currentMap.isItemCell(start))
+            return currentPosition;
+
+        // Closest neighbour to an item, moving along the distance field
+        int next = -1;
+        int numNeighbors = navigator.getNextPossibleCells(currentMap, start, neighbors);
+        for (int k = 0; k < numNeighbors; k++) {
+            int cell = neighbors[k];
+            if (!isBlocked(currentMap, cell) && g[cell] < INFINITY && (next == -1 || g[cell] < g[next]))
+                next = cell;
+        }
+
+        lastProposal = next;
+        return next == -1 ? currentPosition : currentMap.positionOf(next);
+    }
+
+    /* Traps, and cells where a move bounced since the last full update */
+    private boolean isBlocked(Map map, int cell) {
+        return map.isTrapCell(cell) || blocked[cell];
+    }
+
+    /* Blocks or unblocks a cell, updating the cells around it as for a trap appearing or disappearing */
+    private void setBlocked(Map map, int cell, boolean value, int start) {
+        blocked[cell] = value;
+        updateVertex(map, cell, start);
+        int numNeighbors = navigator.getNextPossibleCells(map, cell, predecessors);
+        for (int k = 0; k < numNeighbors; k++)
+            updateVertex(map, predecessors[k], start);
+    }
+
+    /* Starts a search from scratch: every item is a goal */
+    private void initialize(Map map, int start) {
+        numRows = map.getNumRows();
+        numCols = map.getNumCols();
+        int numCells = numRows * numCols;
+
+        g = new int[numCells];
+        rhs = new int[numCells];
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        openSet = new IndexedMinHeap(numCells);
+        km = 0;
+        lastStart = start;
+        blocked = new boolean[numCells];
+        blockedCells.clear();
+
+        knownItems = toCells(map, map.getItemPositions());
+        knownTraps = toCells(map, map.getTrapsPositions());
+        for (int item : knownItems) {
+            rhs[item] = 0;
+            openSet.update(item, key(item, start));
+        }
+    }
+
+    /* Compares the items and traps of the map with the ones the search knows about and updates
+       the cells affected by the differences. Both lists are in increasing order, so the
+       differences come out of a single merge pass */
+    private void updateChangedCells(Map map, int start) {
+        int[] items = toCells(map, map.getItemPositions());
+        int[] traps = toCells(map, map.getTrapsPositions());
+
+        LinkedList<Integer> changedItems = new LinkedList<>();
+        LinkedList<Integer> changedTraps = new LinkedList<>();
+        difference(knownItems, items, changedItems);
+        difference(knownTraps, traps, changedTraps);
+        knownItems = items;
+        knownTraps = traps;
+
+        // Keys queued from the previous position stay valid lower bounds once km grows by the distance moved
+        km += heuristic(lastStart, start);
+        lastStart = start;
+
+        // An item appearing or disappearing changes the cell's own lookahead
+        for (int cell : changedItems)
+            updateVertex(map, cell, start);
+
+        // A trap appearing or disappearing changes the lookahead of the cells next to it
+        for (int cell : changedTraps) {
+            updateVertex(map, cell, start);
+            int numNeighbors = navigator.getNextPossibleCells(map, cell, predecessors);
+            for (int k = 0; k < numNeighbors; k++)
+                updateVertex(map, predecessors[k], start);
+        }
+    }
+
+    private void computeShortestPath(Map map, int start) {
+        while (!openSet.isEmpty()
+                && (openSet.peekKey() < key(start, start) || rhs[start] != g[start])) {
+            int u = openSet.peek();
+            long oldKey = openSet.peekKey();
+            long newKey = key(u, start);
+
+            if (oldKey < newKey) {
+                openSet.update(u, newKey);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                openSet.remove(u);
+                updatePredecessors(map, u, start);
+            } else {
+                g[u] = INFINITY;
+                updateVertex(map, u, start);
+                updatePredecessors(map, u, start);
+            }
+        }
+    }
+
+    /* Cells whose lookahead goes through "cell". Traps are never stepped on, so nothing depends on them */
+    private void updatePredecessors(Map map, int cell, int start) {
+        if (isBlocked(map, cell))
+            return;
+
+        int numNeighbors = navigator.getNextPossibleCells(map, cell, predecessors);
+        for (int k = 0; k < numNeighbors; k++)
+            updateVertex(map, predecessors[k], start);
+    }
+
+    private void updateVertex(Map map, int cell, int start) {
+        if (map.isItemCell(cell)) {
+            rhs[cell] = 0;
+        } else {
+            int best = INFINITY;
+            int numNeighbors = navigator.getNextPossibleCells(map, cell, neighbors);
+            for (int k = 0; k < numNeighbors; k++) {
+                int neighbor = neighbors[k];
+                if (!isBlocked(map, neighbor) && g[neighbor] < INFINITY)
+                    best = Math.min(best, g[neighbor] + 1);
+            }
+            rhs[cell] = best;
+        }
+
+        if (g[cell] != rhs[cell]) {
+            openSet.update(cell, key(cell, start));
+        } else if (openSet.contains(cell)) {
+            openSet.remove(cell);
+        }
+    }
+
+    /* [min(g, rhs) + h + km; min(g, rhs)] packed in a long so that it orders lexicographically */
+    private long key(int cell, int start) {
+        int distance = Math.min(g[cell], rhs[cell]);
+        return ((long) (distance + heuristic(start, cell) + km) << 32) | distance;
+    }
+
+    private int heuristic(int from, int to) {
+        return Math.abs(from / numCols - to / numCols) + Math.abs(from % numCols - to % numCols);
+    }
+
+    private static int[] toCells(Map map, LinkedList<Position> positions) {
+        int[] cells = new int[positions.size()];
+        int k = 0;
+        for (Position pos : positions)
+            cells[k++] = map.cellId(pos);
+
+        return cells;
+    }
+
+    /* Adds to "changed" the cells in exactly one of the two increasing lists */
+    private static void difference(int[] before, int[] after, LinkedList<Integer> changed) {
+        int i = 0;
+        int j = 0;
+        while (i < before.length || j < after.length) {
+            if (j == after.length || (i < before.length && before[i] < after[j])) {
+                changed.add(before[i++]);
+            } else if (i == before.length || after[j] < before[i]) {
+                changed.add(after[j++]);
+            } else {
+                i++;
+                j++;
+            }
+        }
+    }
+}
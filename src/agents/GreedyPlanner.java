@@ -0,0 +1,156 @@
+package agents;
+
+import helper.DecisionMaker;
+import helper.Map;
+import helper.MapNavigator;
+import helper.Position;
+import helper.SimulationState;
+
+import java.util.LinkedList;
+
+/* Heads for the closest item (in BFS steps, avoiding known traps) and follows that path
+   until the item disappears or a trap shows up in the way */
+public class GreedyPlanner implements DecisionMaker {
+
+    private MapNavigator navigator = new MapNavigator();
+
+    private LinkedList<Position> currentPlan = new LinkedList<>();
+    private Position currentTarget; 
+
+    // BFS distance field, reused between searches: a cell has been reached by the
+    // last search when visitedMark[cell] == searchMark
+    private int[] distance;
+    private int[] parent;
+    private int[] queue;
+    private int[] visitedMark;
+    private int searchMark;
+    private int[] neighbors = new int[4];
+
+    // Greedy decision-making
+    public Position makeDecision(SimulationState myState) {
+        Position currentPosition = myState.getPosition();
+        Map currentMap = myState.getMap();
+
+        boolean shouldReplan = currentPlan.isEmpty()
+                || currentTarget == null
+                || !currentMap.isItemPosition(currentTarget)
+                || (!currentPlan.isEmpty() && currentMap.isTrapPosition(currentPlan.getFirst()));
+
+        if (shouldReplan) {
+            currentPlan.clear();
+            currentTarget = null;
+
+            LinkedList<Position> bestPath = findPathToClosestItem(currentMap, currentPosition);
+            if (bestPath != null)
+                currentTarget = bestPath.getLast();
+
+            if (bestPath != null && bestPath.size() > 1) {
+                bestPath.removeFirst();
+                currentPlan = new LinkedList<>(bestPath);
+            }
+        }
+
+        if (!currentPlan.isEmpty()) {
+            Position next = currentPlan.removeFirst();
+            LinkedList<Position> validMoves = navigator.getNextPossiblePositions(currentMap, currentPosition);
+
+            if (validMoves.contains(next)) {
+                if (currentMap.isItemPosition(next)) {
+                    currentTarget = null;
+                    currentPlan.clear();
+                }
+                return next;
+            } else {
+                currentPlan.clear();
+                currentTarget = null;
+            }
+        }
+        return currentPosition;
+    }
+
+    /* Path from "from" to the closest item (both ends included), avoiding traps, or null if no
+       item can be reached. One BFS gives the distance to every item at once, the closest one
+       wins and ties go to the first item in row-major order */
+    public LinkedList<Position> findPathToClosestItem(Map map, Position from) {
+        bfs(map, from);
+
+        Position target = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Position itemPos: map.getItemPositions()) {
+            int distance = distanceTo(map, itemPos);
+
+            if (distance != -1 && distance < bestDistance) {
+                bestDistance = distance;
+                target = itemPos;
+            }
+        }
+
+        return target == null ? null : pathTo(map, target);
+    }
+
+    /* Breadth-first search from "start" avoiding traps, recording the BFS distance and parent
+       of every cell it reaches (see distanceTo/pathTo). Neighbours are expanded in the
+       navigator's order, so the path to any cell is the same one a BFS targeting that cell
+       alone would find. The search stops once the closest items have all been reached */
+    private void bfs(Map map, Position start) {
+        int numCols = map.getNumCols();
+        int numCells = map.getNumRows() * numCols;
+        if (distance == null || distance.length != numCells) {
+            distance = new int[numCells];
+            parent = new int[numCells];
+            queue = new int[numCells];
+            visitedMark = new int[numCells];
+            searchMark = 0;
+        }
+        searchMark++; // cells whose mark differs from this one are unvisited
+
+        int startCell = map.cellId(start);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = startCell;
+        visitedMark[startCell] = searchMark;
+        distance[startCell] = 0;
+        parent[startCell] = -1;
+
+        int nearestItemDistance = map.isItemPosition(start) ? 0 : Integer.MAX_VALUE;
+
+        while (head < tail) {
+            int current = queue[head++];
+
+            // all cells as close as the nearest item were already discovered
+            if (distance[current] >= nearestItemDistance)
+                break;
+
+            int numNeighbors = navigator.getNextPossibleCells(map, current, neighbors);
+            for (int k = 0; k < numNeighbors; k++) {
+                int cell = neighbors[k];
+                if (visitedMark[cell] == searchMark || map.isTrapCell(cell)) {
+                    continue;
+                }
+
+                visitedMark[cell] = searchMark;
+                distance[cell] = distance[current] + 1;
+                parent[cell] = current;
+                queue[tail++] = cell;
+
+                if (distance[cell] < nearestItemDistance && map.isItemCell(cell))
+                    nearestItemDistance = distance[cell];
+            }
+        }
+    }
+
+    /* BFS distance to a cell reached by the last bfs call, -1 if it was not reached */
+    private int distanceTo(Map map, Position pos) {
+        int cell = map.cellId(pos);
+        return visitedMark[cell] == searchMark ? distance[cell] : -1;
+    }
+
+    /* Path from the start of the last bfs call to a reached cell, both ends included */
+    private LinkedList<Position> pathTo(Map map, Position goal) {
+        LinkedList<Position> path = new LinkedList<>();
+        for (int cell = map.cellId(goal); cell != -1; cell = parent[cell])
+            path.addFirst(map.positionOf(cell));
+
+        return path;
+    }
+}
@@ -0,0 +1,12 @@
+package agents;
+
+import helper.DecisionMaker;
+
+/* Participant heading to the closest item by planning on a hierarchical abstraction
+   of the map, meant for very large maps, see HPAStarPlanner */
+public class HPAStarAgent extends ParticipantAgent {
+
+    protected DecisionMaker createDecisionMaker() {
+        return new HPAStarPlanner();
+    }
+}
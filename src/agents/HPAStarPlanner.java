@@ -0,0 +1,87 @@
+package agents;
+
+import helper.DecisionMaker;
+import helper.HierarchicalMap;
+import helper.Map;
+import helper.MapNavigator;
+import helper.Position;
+import helper.SimulationState;
+
+import java.util.LinkedList;
+
+/* Heads for the closest item like AStarPlanner, but plans on the hierarchical abstraction of
+   the map (HPA*, see helper.HierarchicalMap), which keeps decisions cheap on very large maps.
+   The abstract path is kept as a list of waypoints and only the leg towards the next waypoint
+   is refined into cells; the plan is dropped when the target item disappears or a trap shows up
+   in the way, as AStarPlanner does */
+public class HPAStarPlanner implements DecisionMaker {
+
+    private MapNavigator navigator = new MapNavigator();
+    private HierarchicalMap hierarchy;
+
+    private LinkedList<Integer> waypoints = new LinkedList<>(); // cell ids, the target item last
+    private LinkedList<Position> currentLeg = new LinkedList<>();
+    private Position currentTarget;
+
+    public Position makeDecision(SimulationState myState) {
+        Position currentPosition = myState.getPosition();
+        Map currentMap = myState.getMap();
+
+        // the same hierarchy follows every copy of the map we receive, rebuilding only what changed
+        if (hierarchy == null
+                || hierarchy.getNumRows() != currentMap.getNumRows()
+                || hierarchy.getNumCols() != currentMap.getNumCols()) {
+            hierarchy = new HierarchicalMap(currentMap);
+        } else {
+            hierarchy.setMap(currentMap);
+        }
+
+        boolean shouldReplan = (currentLeg.isEmpty() && waypoints.isEmpty())
+                || currentTarget == null
+                || !currentMap.isItemPosition(currentTarget)
+                || (!currentLeg.isEmpty() && currentMap.isTrapPosition(currentLeg.getFirst()));
+
+        if (shouldReplan) {
+            currentLeg.clear();
+            currentTarget = null;
+
+            waypoints = hierarchy.findAbstractPath(currentPosition, currentMap.getItemPositions());
+            if (waypoints == null) {
+                waypoints = new LinkedList<>();
+            } else {
+                currentTarget = currentMap.positionOf(waypoints.getLast());
+            }
+        }
+
+        // refine the next leg once the current one has been walked
+        while (currentLeg.isEmpty() && !waypoints.isEmpty()) {
+            LinkedList<Position> leg = hierarchy.refine(currentPosition, waypoints.removeFirst());
+            if (leg == null) {
+                // something changed along the way, plan again next turn
+                waypoints.clear();
+                currentTarget = null;
+            } else {
+                currentLeg = leg;
+            }
+        }
+
+        if (!currentLeg.isEmpty()) {
+            Position next = currentLeg.removeFirst();
+            LinkedList<Position> validMoves = navigator.getNextPossiblePositions(currentMap, currentPosition);
+
+            if (validMoves.contains(next)) {
+                if (currentMap.isItemPosition(next)) {
+                    currentTarget = null;
+                    currentLeg.clear();
+                    waypoints.clear();
+                }
+                return next;
+            } else {
+                currentLeg.clear();
+                waypoints.clear();
+                currentTarget = null;
+            }
+        }
+        return currentPosition;
+    }
+}
@@ -0,0 +1,12 @@
+package agents;
+
+import helper.DecisionMaker;
+
+/* Participant heading to the closest item like AStarAgent, searching paths with
+   Jump Point Search instead of plain A*, see JPSPlanner */
+public class JPSAgent extends ParticipantAgent {
+
+    protected DecisionMaker createDecisionMaker() {
+        return new JPSPlanner();
+    }
+}
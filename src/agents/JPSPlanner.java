@@ -0,0 +1,167 @@
+package agents;
+
+import helper.JumpDistances;
+import helper.Map;
+import helper.Position;
+
+import java.util.LinkedList;
+
+/* Same kind of decisions as AStarPlanner, but paths are searched with Jump Point Search for
+   4-connected grids (the "never move diagonally" variant of PathFinding.js).
+
+   On a uniform-cost grid most shortest paths are symmetric variations of each other, so
+   instead of queueing every neighbour the search keeps going straight ("jumps") until it reaches
+   the goal, a trap or the map edge, or a cell where a trap forces a turn. Only those jump points
+   are queued. Vertical jumps also stop where a horizontal jump would find one, so that turns
+   can always be taken from them.
+
+   Where jumps stop only depends on the traps (and the goal), so the distances to the next jump
+   point are precomputed in every direction (JumpDistances, as in JPS+) and a jump is a lookup
+   instead of a walk along the row or column. They are computed again when the traps change.
+
+   Paths are as short as AStarPlanner's, but ties between paths of the same length are broken
+   differently, so they are not always the same ones */
+public class JPSPlanner extends AStarPlanner {
+
+    // The search state is AStarPlanner's, except that parent links jump points, not adjacent cells
+    private Map map;
+    private JumpDistances jumps;
+    private int goalRow;
+    private int goalCol;
+
+    @Override
+    public LinkedList<Position> findPath(Map map, Position from, Position to) {
+        this.map = map;
+        if (jumps == null || jumps.getNumRows() != map.getNumRows() || jumps.getNumCols() != map.getNumCols())
+            jumps = new JumpDistances(map);
+        else
+            jumps.setMap(map);
+        goalRow = to.x;
+        goalCol = to.y;
+        ensureCapacity(map.getNumRows() * map.getNumCols());
+        searchMark++;
+        openSet.clear();
+        expandedCells = 0;
+
+        int start = map.cellId(from);
+        int goal = map.cellId(to);
+        gScore[start] = 0;
+        parent[start] = -1;
+        seenMark[start] = searchMark;
+        openSet.update(start, key(0, heuristic(from.x, from.y)));
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (current == goal) {
+                return reconstructPath(current);
+            }
+            closedMark[current] = searchMark;
+            expandedCells++;
+
+            int row = map.cellRow(current);
+            int col = map.cellCol(current);
+
+            // Natural and forced neighbours given the direction we arrived from
+            if (parent[current] == -1) {
+                identifySuccessor(current, row, col, -1, 0);
+                identifySuccessor(current, row, col, 1, 0);
+                identifySuccessor(current, row, col, 0, -1);
+                identifySuccessor(current, row, col, 0, 1);
+            } else {
+                int dRow = Integer.signum(row - map.cellRow(parent[current]));
+                int dCol = Integer.signum(col - map.cellCol(parent[current]));
+                if (dCol != 0) {
+                    identifySuccessor(current, row, col, -1, 0);
+                    identifySuccessor(current, row, col, 1, 0);
+                    identifySuccessor(current, row, col, 0, dCol);
+                } else {
+                    identifySuccessor(current, row, col, 0, -1);
+                    identifySuccessor(current, row, col, 0, 1);
+                    identifySuccessor(current, row, col, dRow, 0);
+                }
+            }
+        }
+        return null;
+    }
+
+    /* Jumps from "current" in direction (dRow, dCol) and queues the jump point found, if any */
+    private void identifySuccessor(int current, int row, int col, int dRow, int dCol) {
+        int jumpPoint = dCol != 0
+                ? jumpHorizontally(row, col + dCol, dCol)
+                : jumpVertically(row + dRow, col, dRow);
+        if (jumpPoint == -1 || closedMark[jumpPoint] == searchMark) {
+            return;
+        }
+
+        int jumpRow = map.cellRow(jumpPoint);
+        int jumpCol = map.cellCol(jumpPoint);
+        int tentativeScore = gScore[current] + Math.abs(jumpRow - row) + Math.abs(jumpCol - col);
+        if (seenMark[jumpPoint] != searchMark || tentativeScore < gScore[jumpPoint]) {
+            seenMark[jumpPoint] = searchMark;
+            parent[jumpPoint] = current;
+            gScore[jumpPoint] = tentativeScore;
+            openSet.update(jumpPoint, key(tentativeScore, heuristic(jumpRow, jumpCol)));
+        }
+    }
+
+    /* First jump point going along the row from (row, col) included, -1 if there is none */
+    private int jumpHorizontally(int row, int col, int dCol) {
+        if (col < 0 || col >= map.getNumCols()) {
+            return -1;
+        }
+        int cell = map.cellId(row, col);
+        int distance = jumps.get(cell, dCol > 0 ? JumpDistances.RIGHT : JumpDistances.LEFT);
+        if (distance == JumpDistances.BLOCKED) {
+            return -1;
+        }
+        if (row == goalRow && reaches(distance, (goalCol - col) * dCol)) {
+            return map.cellId(goalRow, goalCol);
+        }
+        return distance >= 0 ? cell + distance * dCol : -1;
+    }
+
+    /* First jump point going along the column from (row, col) included, -1 if there is none */
+    private int jumpVertically(int row, int col, int dRow) {
+        if (row < 0 || row >= map.getNumRows()) {
+            return -1;
+        }
+        int cell = map.cellId(row, col);
+        int distance = jumps.get(cell, dRow > 0 ? JumpDistances.DOWN : JumpDistances.UP);
+        if (distance == JumpDistances.BLOCKED) {
+            return -1;
+        }
+        // in the goal's row, also stop if it is there or a horizontal jump would find it
+        if (reaches(distance, (goalRow - row) * dRow)
+                && (col == goalCol || jumpHorizontally(goalRow, col + 1, 1) != -1
+                    || jumpHorizontally(goalRow, col - 1, -1) != -1)) {
+            return map.cellId(goalRow, col);
+        }
+        return distance >= 0 ? cell + distance * dRow * map.getNumCols() : -1;
+    }
+
+    /* Whether a cell "steps" ahead is reached before (or at) the jump point "distance" away, or
+       before the end of the walkable run if there is no jump point */
+    private static boolean reaches(int distance, int steps) {
+        return steps >= 0 && (distance >= 0 ? steps <= distance : steps < -distance);
+    }
+
+    private int heuristic(int row, int col) {
+        return Math.abs(row - goalRow) + Math.abs(col - goalCol);
+    }
+
+    /* Expands the chain of jump points into every cell along the way, both ends included */
+    private LinkedList<Position> reconstructPath(int current) {
+        LinkedList<Position> path = new LinkedList<>();
+        path.addFirst(map.positionOf(current));
+        for (; parent[current] != -1; current = parent[current]) {
+            int from = parent[current];
+            int step = map.cellRow(current) != map.cellRow(from)
+                    ? (current > from ? map.getNumCols() : -map.getNumCols())
+                    : (current > from ? 1 : -1);
+            for (int cell = current - step; cell != from; cell -= step)
+                path.addFirst(map.positionOf(cell));
+            path.addFirst(map.positionOf(from));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,208 @@
+package agents;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.OneShotBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+import jade.lang.acl.ACLMessage;
+import jade.proto.SubscriptionInitiator;
+import helper.DecisionMaker;
+import helper.Log;
+import helper.Position;
+import helper.SimulationRandom;
+import helper.SimulationState;
+import helper.SimulationStateDelta;
+import helper.SimulatorAgent;
+import helper.StateCodec;
+
+import java.io.IOException;
+import java.util.Random;
+
+/* JADE side of a participant: finds the simulator, joins the simulation and answers its
+   requests for actions. The decision itself is delegated to the DecisionMaker returned by
+   createDecisionMaker, which can also be driven without JADE by helper.HeadlessSimulation */
+public abstract class ParticipantAgent extends Agent {
+    private AID simulatorAgent;
+    private int commitment;
+    private SimulationState myState = null;
+    private long seed = SimulationRandom.DEFAULT_SEED; // the simulator's, known once joined
+
+    private DecisionMaker decisionMaker;
+
+    /* Called once the simulation has been joined, so that participantRandom can be used */
+    protected abstract DecisionMaker createDecisionMaker();
+
+    /* This participant's own random stream of the simulation (see SimulationRandom) */
+    protected Random participantRandom() {
+        return new SimulationRandom(seed).participant(getLocalName());
+    }
+
+    protected void setup() {
+        super.setup();
+        Log.info("%s %s is ready.", getClass().getSimpleName(), getAID().getName());
+        Object[] args = getArguments();
+
+        if (args == null || args.length == 0) {
+            Log.warn("No commitment level provided. Defaulting to 1.");
+            commitment = 1;
+        } else {
+            commitment = Integer.parseInt((String) args[0]);
+        }
+
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+
+        sd.setType("SimulatorService");
+
+        template.addServices(sd);
+
+        // The DF notifies us as soon as the simulator registers, or right away if it already has
+        addBehaviour(new SubscriptionInitiator(this, DFService.createSubscriptionMessage(this, getDefaultDF(), template, null)) {
+
+            protected void handleInform(ACLMessage inform) {
+                if (simulatorAgent != null)
+                    return;
+
+                try {
+                    for (DFAgentDescription simulator : DFService.decodeNotification(inform.getContent())) {
+                        // deregistrations are notified too, without services
+                        if (simulatorAgent == null && simulator.getAllServices().hasNext())
+                            simulatorAgent = simulator.getName();
+                    }
+                } catch (FIPAException fe) {
+                    Log.error(getLocalName() + ": Unable to read the DF notification", fe);
+                }
+
+                if (simulatorAgent != null) {
+                    Log.info("Found Simulator Agent %s", simulatorAgent);
+                    cancel(getDefaultDF(), true);
+                    addBehaviour(new RequestJoinBehavior());
+                }
+            }
+        });
+    }
+
+    protected Position makeDecision() {
+        return decisionMaker.makeDecision(myState);
+    }
+
+    private class RequestJoinBehavior extends OneShotBehaviour {
+
+        /*
+        Participants must send:
+            performative = REQUEST
+            conversationId = "join-simulation-request"
+            content = <integer commitment>
+        Simulator Agent: RegisterParticipantsBehaviour.action replies:
+            AGREE + contentObject = initial SimulationState if there's space
+            or REFUSE if full
+
+        */
+        private MessageTemplate mt;
+
+        public void action() {
+            ACLMessage req = new ACLMessage(ACLMessage.REQUEST);
+            req.addReceiver(simulatorAgent);
+            req.setContent(Integer.toString(commitment));
+            req.setConversationId("join-simulation-request");
+            req.setReplyWith("req" + System.currentTimeMillis());
+            myAgent.send(req);
+
+            mt = MessageTemplate.and(MessageTemplate.MatchConversationId("join-simulation-request"),
+                    MessageTemplate.MatchInReplyTo(req.getReplyWith()));
+
+            ACLMessage reply = myAgent.blockingReceive(mt);
+
+            if (reply != null) {
+                if (reply.getPerformative() == ACLMessage.AGREE) {
+                    Log.info("Joined simulation successfully with commitment: %d", commitment);
+
+                    // get initial simulation state from contentObject
+                    try {
+                        SimulationState contentObject = (SimulationState) StateCodec.readContent(reply);
+                        if (Log.isDebugEnabled())
+                            Log.debug("Received initial simulation state: \n%s\n%s",
+                                    contentObject.getMap().describe(), contentObject.getPosition());
+                        myState = contentObject;
+                    } catch (Exception e) {
+                        Log.error(getLocalName() + ": Unable to read the initial simulation state", e);
+                    }
+
+                    String simulationSeed = reply.getUserDefinedParameter(SimulatorAgent.SEED_PARAMETER);
+                    if (simulationSeed != null)
+                        seed = Long.parseLong(simulationSeed);
+                    decisionMaker = createDecisionMaker();
+
+                    addBehaviour(new GameLoopBehavior());
+
+                } else if (reply.getPerformative() == ACLMessage.REFUSE) {
+                    Log.warn("Failed to join simulation: %s", reply.getContent());
+                }
+            } else {
+                Log.warn("No response received for join request.");
+            }
+        }
+    }
+
+
+    private class GameLoopBehavior extends CyclicBehaviour {
+
+        public void action() {
+
+            if (myState == null) {
+                block();
+                return;
+            }
+
+            MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.REQUEST);
+
+            mt = MessageTemplate.or(mt, MessageTemplate.MatchPerformative(ACLMessage.INFORM));
+            ACLMessage msg = myAgent.receive(mt);
+            if (msg != null) {
+                try {
+                    switch (msg.getPerformative()) {
+                        case ACLMessage.REQUEST:
+                            try {
+                                Position nextPosition = makeDecision();
+                                ACLMessage rep = msg.createReply();
+                                rep.setPerformative(ACLMessage.PROPOSE);
+                                StateCodec.writeContent(rep, nextPosition, StateCodec.isBinary(msg));
+                                myAgent.send(rep);
+
+                            } catch (Exception e) {
+                                Log.error(getLocalName() + ": Error in makeDecision: " + e.getMessage(), e);
+                                // Send current position as fallback
+                                Position fallback = myState.getPosition();
+                                ACLMessage rep = msg.createReply();
+                                rep.setPerformative(ACLMessage.PROPOSE);
+                                StateCodec.writeContent(rep, fallback, StateCodec.isBinary(msg));
+                                myAgent.send(rep);
+                            }
+                            break;
+
+                        case ACLMessage.INFORM:
+                            if ("update-state".equals(msg.getConversationId())) {
+                                // content is either a full SimulationState or a SimulationStateDelta to apply on our map
+                                myState = SimulationStateDelta.applyUpdate(myState, StateCodec.readContent(msg));
+                            } else if ("simulation-complete".equals(msg.getConversationId())) {
+                                Log.info("%s: Game Over.", getLocalName());
+                                myAgent.doDelete();
+                            }
+                            break;
+                    }
+                } catch (UnreadableException | IOException e) {
+                    Log.error(getLocalName() + ": Unable to handle " + ACLMessage.getPerformative(msg.getPerformative()), e);
+                }
+            } else {
+                block();
+            }
+        }
+    }
+
+}
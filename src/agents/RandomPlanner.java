@@ -0,0 +1,33 @@
+package agents;
+
+import helper.DecisionMaker;
+import helper.Map;
+import helper.MapNavigator;
+import helper.Position;
+import helper.SimulationState;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+/* Moves to a random neighbouring position within the map */
+public class RandomPlanner implements DecisionMaker {
+
+    private MapNavigator navigator;
+    private Random rand;
+
+    public RandomPlanner(Random rand) {
+        navigator = new MapNavigator();
+        this.rand = rand;
+    }
+
+    public Position makeDecision(SimulationState currentState) {
+        Map map = currentState.getMap();
+        Position position = currentState.getPosition();
+
+        LinkedList<Position> candidates = navigator.getNextPossiblePositions(map, position);
+
+        if (candidates.isEmpty()) return position;
+
+        return candidates.get(rand.nextInt(candidates.size()));
+    }
+}
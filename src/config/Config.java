@@ -1,6 +0,0 @@
-package config;
-
-public class Config {
-    public static long SEED = 42L;
-    public static boolean USE_SEED = true;
-}
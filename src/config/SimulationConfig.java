@@ -0,0 +1,121 @@
+package config;
+
+import helper.Log;
+
+/* Parameters of one simulation, shared by the JADE SimulatorAgent and the headless runner.
+   Arguments are the simulator's agent arguments:
+     {numTraps},{numStepsMapReDist},{numParticipants},{seed} (all optional, positional)
+   followed by optional key=value options */
+public class SimulationConfig {
+
+    // Map parameters
+    public int numRows = 10;
+    public int numCols = 10;
+    public int numItems = 5;
+    public int numTraps = 0;
+
+    // Simulation parameters
+    public int numParticipants = 1;
+    public int numSimRounds = 1000;
+    public int numStepsMapReDist = 9999; // If equals numSimRounds, implies no map rescheduling
+    public long seed = 42L; // every random choice of the simulation derives from it (see helper.SimulationRandom), time-based when not given
+    public boolean binaryCodec = true; // StateCodec for state/position payloads, false keeps Java serialization
+    public boolean concurrentProposals = false; // ask all participants at once instead of one after another
+
+    // Output files (JSON lines, see helper.ResultsWriter), none by default
+    public String resultsFile = null; // final results of each participant
+    public String roundsFile = null; // scores and positions after every round
+
+    public static SimulationConfig fromArguments(Object[] args)
+    {
+        SimulationConfig config = new SimulationConfig();
+
+        if (args != null && args.length >= 1) {
+            try { config.numTraps           = Integer.parseInt((String) args[0]); } catch (Exception e) {}
+        }
+        if (args != null && args.length >= 2) {
+            try { config.numStepsMapReDist  = Integer.parseInt((String) args[1]); } catch (Exception e) {}
+        }
+        if (args != null && args.length >= 3) {
+            try { config.numParticipants    = Integer.parseInt((String) args[2]); } catch (Exception e) {}
+        }
+        boolean seedGiven = false;
+        if (args != null && args.length >= 4) {
+            try { config.seed = Long.parseLong((String) args[3]); seedGiven = true; } catch (Exception e) {}
+        }
+        // Without a seed every run is a different world, as with an unseeded Random
+        if (!seedGiven)
+            config.seed = System.nanoTime() ^ System.currentTimeMillis();
+        // Optional "key=value" arguments after the positional ones
+        if (args != null) {
+            for (int k = 4; k < args.length; k++)
+                config.parseOption((String) args[k]);
+        }
+        // After the options, which may change the log level. Also printed for time-based seeds,
+        // so that any run can be reproduced
+        Log.info("Using seed: %d", config.seed);
+
+        return config;
+    }
+
+    private void parseOption(String option)
+    {
+        String[] keyValue = option.split("=", 2);
+        if (keyValue.length != 2) {
+            Log.warn("Ignoring simulator argument: %s", option);
+            return;
+        }
+
+        switch (keyValue[0].trim()) {
+            case "codec": // binary | java
+                binaryCodec = !"java".equals(keyValue[1].trim());
+                break;
+            case "proposals": // sequential | concurrent
+                concurrentProposals = "concurrent".equals(keyValue[1].trim());
+                break;
+            case "size": // square map of size x size
+                numRows = parsePositive(keyValue, numRows);
+                numCols = numRows;
+                break;
+            case "rows":
+                numRows = parsePositive(keyValue, numRows);
+                break;
+            case "cols":
+                numCols = parsePositive(keyValue, numCols);
+                break;
+            case "items":
+                numItems = parsePositive(keyValue, numItems);
+                break;
+            case "rounds":
+                numSimRounds = parsePositive(keyValue, numSimRounds);
+                break;
+            case "results":
+                resultsFile = keyValue[1].trim();
+                break;
+            case "roundlog":
+                roundsFile = keyValue[1].trim();
+                break;
+            case "log": // debug | info | warn | error | off, for the whole JVM
+                Log.Level level = Log.parseLevel(keyValue[1], null);
+                if (level != null)
+                    Log.setLevel(level);
+                else
+                    Log.warn("Ignoring invalid value for simulator option %s: %s", keyValue[0], keyValue[1]);
+                break;
+            default:
+                Log.warn("Ignoring unknown simulator option: %s", keyValue[0]);
+        }
+    }
+
+    private static int parsePositive(String[] keyValue, int defaultValue)
+    {
+        try {
+            int value = Integer.parseInt(keyValue[1].trim());
+            if (value > 0)
+                return value;
+        } catch (NumberFormatException e) {}
+
+        Log.warn("Ignoring invalid value for simulator option %s: %s", keyValue[0], keyValue[1]);
+        return defaultValue;
+    }
+}
@@ -0,0 +1,11 @@
+package helper;
+
+/* Decision logic of a participant, independent of how it talks to the simulator.
+   Given the participant's current (possibly stale) view of the world it returns the position
+   it wants to move to. Implementations may keep state between turns, such as a plan, but must
+   not change the map of the given state: between full updates the simulator only sends the cells
+   it cleared, so that map has to stay equal to the simulator's copy of it (see SimulationStateDelta) */
+public interface DecisionMaker {
+
+    Position makeDecision(SimulationState state);
+}
@@ -0,0 +1,222 @@
+package helper;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/* Runs the experiments of experiments.py in a single JVM: every repetition of every configuration
+   is an in-process HeadlessSimulation, and all of them run at the same time on a fork-join pool.
+   Scenarios, configurations and seeds (scenario * 100000 + configuration * 1000 + repetition) are
+   the ones of the script, so scores are the same as in its headless runs; the mean and standard
+   deviation of each agent type are printed and saved to results_scenario_{n}.txt.
+
+   Usage: java -cp "lib/jade.jar:classes" helper.ExperimentRunner [-s scenario] [-r repetitions] [-t threads] */
+public class ExperimentRunner {
+
+    private static final String[] AGENT_TYPES = { "Random", "Greedy", "AStar" };
+    private static final String[] COLUMNS = { "Alone c=1", "Alone c=20", "Together c=1", "Together c=20" };
+
+    // label, numTraps, numStepsMapReDist (10000 never redistributes in a 1000-round simulation)
+    private static final Object[][] SCENARIOS = {
+        { "Fixed world, no traps", 0, 10000 },
+        { "Fixed world, 10 traps", 10, 10000 },
+        { "Dynamic world, no traps", 0, 10 },
+        { "Dynamic world, 10 traps", 10, 10 },
+    };
+
+    /* One repetition of one configuration. Scores go to scores[agent type][column][repetition],
+       left as null when the simulation fails */
+    private static class Run implements Callable<Void> {
+        String agentsSpec;
+        int column;
+        int repetition;
+        Integer[][][] scores;
+
+        public Void call() throws Exception
+        {
+            SimulationEngine engine = new HeadlessSimulation(agentsSpec).run();
+            for (Participant participant : engine.getParticipants())
+            {
+                String type = participant.getAID().getLocalName().replaceAll("[^A-Za-z].*$", "");
+                for (int t = 0; t < AGENT_TYPES.length; t++)
+                {
+                    if (AGENT_TYPES[t].equals(type))
+                        scores[t][column][repetition] = participant.getScore();
+                }
+            }
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int scenario = 0; // all of them
+        int repetitions = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int k = 0; k + 1 < args.length; k += 2)
+        {
+            switch (args[k]) {
+                case "-s": scenario = Integer.parseInt(args[k + 1]); break;
+                case "-r": repetitions = Integer.parseInt(args[k + 1]); break;
+                case "-t": threads = Integer.parseInt(args[k + 1]); break;
+                default:
+                    System.out.println("Usage: ExperimentRunner [-s scenario] [-r repetitions] [-t threads]");
+                    return;
+            }
+        }
+
+        // Only the tables below, unless asked otherwise with -Dlog.level
+        if (System.getProperty("log.level") == null)
+            Log.setLevel(Log.Level.WARN);
+
+        // Every run of every scenario is submitted at once, results are gathered by scenario
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Run> runs = new ArrayList<Run>();
+        List<Integer[][][]> results = new ArrayList<Integer[][][]>();
+        for (int s = 1; s <= SCENARIOS.length; s++)
+        {
+            Integer[][][] scores = new Integer[AGENT_TYPES.length][COLUMNS.length][repetitions];
+            results.add(scores);
+            if (scenario == 0 || scenario == s)
+                runs.addAll(scenarioRuns(s, repetitions, scores));
+        }
+
+        long start = System.nanoTime();
+        List<Future<Void>> futures = pool.invokeAll(runs);
+        for (int k = 0; k < futures.size(); k++)
+        {
+            try {
+                futures.get(k).get();
+            } catch (Exception e) {
+                Log.error("Simulation failed: " + runs.get(k).agentsSpec, e);
+            }
+        }
+        pool.shutdown();
+        Log.flush();
+        long elapsed = System.nanoTime() - start;
+
+        for (int s = 1; s <= SCENARIOS.length; s++)
+        {
+            if (scenario == 0 || scenario == s)
+                report(s, repetitions, results.get(s - 1));
+        }
+        System.out.printf("%n%d simulations on %d threads in %.1f s%n", runs.size(), threads, elapsed / 1e9);
+    }
+
+    /* Each agent type alone, then all of them together, with commitment 1 and 20 */
+    private static List<Run> scenarioRuns(int scenario, int repetitions, Integer[][][] scores)
+    {
+        List<Run> runs = new ArrayList<Run>();
+        int configIndex = 0; // keeps seeds apart across configurations
+        for (int together = 0; together <= 1; together++)
+        {
+            for (int commitment : new int[] { 1, 20 })
+            {
+                int column = together * 2 + (commitment == 1 ? 0 : 1);
+                List<String[]> groups = new ArrayList<String[]>();
+                if (together == 0)
+                {
+                    for (String type : AGENT_TYPES)
+                        groups.add(new String[] { type });
+                } else {
+                    groups.add(AGENT_TYPES);
+                }
+
+                for (String[] types : groups)
+                {
+                    for (int rep = 1; rep <= repetitions; rep++)
+                    {
+                        Run run = new Run();
+                        run.agentsSpec = agentsSpec(scenario, types, commitment, scenario * 100000 + configIndex * 1000 + rep);
+                        run.column = column;
+                        run.repetition = rep - 1;
+                        run.scores = scores;
+                        runs.add(run);
+                    }
+                    configIndex++;
+                }
+            }
+        }
+        return runs;
+    }
+
+    private static String agentsSpec(int scenario, String[] types, int commitment, int seed)
+    {
+        Object[] definition = SCENARIOS[scenario - 1];
+        StringBuilder spec = new StringBuilder();
+        spec.append("Simulator:helper.SimulatorAgent(").append(definition[1]).append(',').append(definition[2])
+            .append(',').append(types.length).append(',').append(seed).append(')');
+        for (int k = 0; k < types.length; k++)
+            spec.append(';').append(types[k]).append('_').append(k + 1).append(":agents.").append(types[k])
+                .append("Agent(").append(commitment).append(')');
+        return spec.toString();
+    }
+
+    private static void report(int scenario, int repetitions, Integer[][][] scores) throws IOException
+    {
+        Object[] definition = SCENARIOS[scenario - 1];
+
+        LinkedList<String> lines = new LinkedList<String>();
+        lines.add("Scenario " + scenario + ": " + definition[0]);
+        lines.add("traps=" + definition[1] + ", redistrib_every=" + definition[2] + ", reps=" + repetitions);
+        String separator = "-".repeat(12 + 16 * COLUMNS.length);
+        lines.add(separator);
+        StringBuilder header = new StringBuilder(String.format("%-12s", "Agent Type"));
+        for (String column : COLUMNS)
+            header.append(String.format("%16s", column));
+        lines.add(header.toString());
+        lines.add(separator);
+        for (int t = 0; t < AGENT_TYPES.length; t++)
+        {
+            StringBuilder row = new StringBuilder(String.format("%-12s", AGENT_TYPES[t]));
+            for (int c = 0; c < COLUMNS.length; c++)
+                row.append(String.format("%16s", meanAndDeviation(scores[t][c])));
+            lines.add(row.toString());
+        }
+        lines.add(separator);
+
+        System.out.println();
+        try (PrintWriter out = new PrintWriter(new FileWriter("results_scenario_" + scenario + ".txt")))
+        {
+            for (String line : lines)
+            {
+                System.out.println(line);
+                out.println(line);
+            }
+        }
+        System.out.println("Saved to: results_scenario_" + scenario + ".txt");
+    }
+
+    /* "mean +- sample standard deviation" of the scores that are there, "N/A" when there are none */
+    private static String meanAndDeviation(Integer[] scores)
+    {
+        int count = 0;
+        double sum = 0;
+        for (Integer score : scores)
+        {
+            if (score != null)
+            {
+                count++;
+                sum += score;
+            }
+        }
+        if (count == 0)
+            return "N/A";
+
+        double mean = sum / count;
+        double squares = 0;
+        for (Integer score : scores)
+        {
+            if (score != null)
+                squares += (score - mean) * (score - mean);
+        }
+        double deviation = count > 1 ? Math.sqrt(squares / (count - 1)) : 0;
+        return String.format("%.1f +- %.1f", mean, deviation);
+    }
+}
@@ -0,0 +1,190 @@
+package helper;
+import jade.core.AID;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import config.SimulationConfig;
+
+/* Runs a whole simulation in-process, without the JADE platform nor any messaging:
+   the SimulationEngine resolves the actions that each participant's DecisionMaker
+   returns when called directly, round after round.
+
+   It takes the same agents specification as jade.Boot, for instance:
+     java -cp "lib/jade.jar:classes" helper.HeadlessSimulation -agents "Simulator:helper.SimulatorAgent(10,10,2,42);Greedy_1:agents.GreedyAgent(1);Random_2:agents.RandomAgent(20)"
+   The simulator entry provides the SimulationConfig arguments, and each participant
+   "Name:package.XAgent(commitment)" is played by the DecisionMaker package.XPlanner, built with
+   the participant's random stream when it has a constructor taking a java.util.Random.
+   Everything random comes from the simulation's own seed, so several simulations can run at
+   the same time in one JVM and still give the same results */
+public class HeadlessSimulation {
+
+    private static final Pattern AGENT_SPEC = Pattern.compile("\\s*([^:]+):([\\w.]+)(?:\\((.*)\\))?\\s*");
+
+    /* A participant as seen from both sides: the simulator's record and the participant's own view */
+    private static class LocalParticipant {
+        Participant participant;
+        DecisionMaker decisionMaker;
+        SimulationState localState;
+    }
+
+    private String simulatorName = "Simulator";
+    private SimulationConfig config = new SimulationConfig();
+    private LinkedList<String[]> participantSpecs = new LinkedList<String[]>(); // name, planner class, commitment
+
+    // Built by setUp
+    private SimulationEngine engine;
+    private LinkedList<LocalParticipant> locals;
+
+    public HeadlessSimulation(String agentsSpec)
+    {
+        for (String spec : agentsSpec.split(";"))
+        {
+            if (spec.trim().isEmpty())
+                continue;
+
+            Matcher m = AGENT_SPEC.matcher(spec);
+            if (!m.matches())
+                throw new IllegalArgumentException("Invalid agent specification: " + spec);
+
+            String name = m.group(1).trim();
+            String className = m.group(2);
+            String[] args = m.group(3) == null || m.group(3).trim().isEmpty() ? new String[0] : m.group(3).split(",");
+
+            if (className.equals(SimulatorAgent.class.getName()))
+            {
+                simulatorName = name;
+                config = SimulationConfig.fromArguments(args);
+            } else {
+                String commitment = args.length > 0 ? args[0].trim() : "1";
+                participantSpecs.add(new String[] { name, className.replaceAll("Agent$", "Planner"), commitment });
+            }
+        }
+    }
+
+    /* Creates the map and the participants. run() does it when it has not been done yet */
+    public void setUp() throws Exception
+    {
+        engine = new SimulationEngine(config);
+
+        locals = new LinkedList<LocalParticipant>();
+        for (String[] spec : participantSpecs)
+        {
+            LocalParticipant local = new LocalParticipant();
+            local.decisionMaker = createDecisionMaker(spec[1], engine.getRandom().participant(spec[0]));
+            // "name@platform" is taken as a full name, so no JADE platform is needed to build it
+            SimulationState initialState = engine.addParticipant(new AID(spec[0] + "@headless", AID.ISGUID), Integer.parseInt(spec[2]));
+            local.participant = engine.getParticipants().getLast();
+            local.localState = receive(initialState, null);
+            locals.add(local);
+        }
+        // same turn order as the engine's
+        engine.orderParticipants();
+        locals.sort(Comparator.comparing(local -> local.participant.getAID().getLocalName()));
+    }
+
+    /* Runs the simulation to completion and returns the engine holding the final state */
+    public SimulationEngine run() throws Exception
+    {
+        if (engine == null)
+            setUp();
+
+        SimulationMetrics metrics = engine.getMetrics();
+        try (ResultsWriter results = new ResultsWriter(config))
+        {
+            playRounds(metrics, results);
+        }
+
+        return engine;
+    }
+
+    /* Plays every round, writing the results as it goes */
+    private void playRounds(SimulationMetrics metrics, ResultsWriter results) throws Exception
+    {
+        long simulationStart = System.nanoTime();
+        while (!engine.simulationComplete())
+        {
+            long roundStart = System.nanoTime();
+            for (LocalParticipant local : locals)
+            {
+                Position nextPosition;
+                long start = System.nanoTime();
+                try {
+                    nextPosition = local.decisionMaker.makeDecision(local.localState);
+                } catch (Exception e) {
+                    Log.error(local.participant.getAID().getLocalName() + ": Error in makeDecision: " + e.getMessage(), e);
+                    // current position as fallback, as the JADE participants do
+                    nextPosition = local.localState.getPosition();
+                }
+                metrics.proposal(local.participant).record(System.nanoTime() - start);
+
+                Serializable stateUpdate = engine.processAction(nextPosition, local.participant);
+                local.localState = receive(stateUpdate, local.localState);
+                if (Log.isDebugEnabled() && !local.localState.getMap().sameContents(local.participant.getSimulationState().getMap()))
+                    Log.warn("%s: map out of step with the simulator's copy after round %d",
+                        local.participant.getAID().getLocalName(), engine.getRoundCount());
+            }
+
+            engine.endRound();
+            long roundTime = System.nanoTime() - roundStart;
+            metrics.round().record(roundTime);
+            results.roundEnded(engine, roundTime);
+        }
+        results.simulationEnded(engine, System.nanoTime() - simulationStart);
+    }
+
+    private static DecisionMaker createDecisionMaker(String className, Random random) throws Exception
+    {
+        Class<?> plannerClass = Class.forName(className);
+        try {
+            return (DecisionMaker) plannerClass.getDeclaredConstructor(Random.class).newInstance(random);
+        } catch (NoSuchMethodException e) {
+            return (DecisionMaker) plannerClass.getDeclaredConstructor().newInstance();
+        }
+    }
+
+    /* What a JADE participant ends up holding after receiving "update": full states are
+       copied (as deserialization would) so that the participant's own changes to its map
+       never leak into the simulator's records */
+    private static SimulationState receive(Object update, SimulationState localState) throws CloneNotSupportedException
+    {
+        if (update instanceof SimulationState)
+        {
+            SimulationState state = (SimulationState) update;
+            return new SimulationState((Map) state.getMap().clone(), state.getPosition());
+        }
+
+        return SimulationStateDelta.applyUpdate(localState, update);
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String agentsSpec = null;
+        for (int k = 0; k < args.length; k++)
+        {
+            if ("-agents".equals(args[k]) && k + 1 < args.length)
+                agentsSpec = args[++k];
+            else
+                agentsSpec = args[k];
+        }
+        if (agentsSpec == null)
+        {
+            System.out.println("Usage: HeadlessSimulation -agents \"Simulator:helper.SimulatorAgent(...);Name:agents.GreedyAgent(1);...\"");
+            return;
+        }
+
+        HeadlessSimulation simulation = new HeadlessSimulation(agentsSpec);
+        SimulationEngine engine = simulation.run();
+
+        // same final report as the SimulatorAgent
+        Log.info("%s: SIMULATION ENDED!!!", simulation.simulatorName);
+        engine.showOverallState();
+        if (Log.isEnabled(Log.Level.INFO))
+            Log.info("\nLatencies:%n%s", engine.getMetrics().report().stripTrailing());
+        Log.flush();
+    }
+}
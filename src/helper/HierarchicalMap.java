@@ -0,0 +1,719 @@
+package helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.PriorityQueue;
+
+/* Hierarchical abstraction of a Map for path planning on very large maps (HPA*).
+
+   The map is split in square clusters. Where two neighbouring clusters share an opening (a run
+   of border cells free of traps on both sides) there is a transition between them: a pair of
+   entrance cells, one on each side, at the middle of the opening, or at both ends for wide
+   openings. The abstract graph has the entrances as nodes, linked across borders with cost 1 and
+   inside each cluster with their shortest distance without leaving the cluster.
+
+   Searches run on the abstract graph (findAbstractPath) and only the leg about to be walked is
+   refined into cells (refine). Paths are not always the shortest ones, but close to them.
+
+   Items do not matter for the graph, only traps do. The graph follows the changes of its map
+   through a MapChangeListener, and clusters whose traps changed are rebuilt (together with the
+   borders they share with their neighbours) the next time the graph is used */
+public class HierarchicalMap implements MapChangeListener {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    // Openings at least this wide get a transition at each end instead of one in the middle
+    private static final int WIDE_OPENING = 6;
+    private static final int TARGET = -1; // abstract node standing for any of the goals
+    // Bounds of the distance to the goals, as {dRow, dCol, sRow, sCol}: goals of the cluster
+    // (dRow, dCol) away and of the ones beyond it that way, bounded with signs sRow, sCol (see
+    // computeGoalBounds). Bounds of the same clusters are consecutive
+    private static final int[][] GOAL_BOUNDS = {
+        { 0, 0, 1, 1 }, { 0, 0, 1, -1 }, { 0, 0, -1, 1 }, { 0, 0, -1, -1 },
+        { 1, 1, 1, 1 }, { 1, -1, 1, -1 }, { -1, 1, -1, 1 }, { -1, -1, -1, -1 },
+        { 1, 0, 1, 1 }, { 1, 0, 1, -1 }, { -1, 0, -1, 1 }, { -1, 0, -1, -1 },
+        { 0, 1, 1, 1 }, { 0, 1, -1, 1 }, { 0, -1, 1, -1 }, { 0, -1, -1, -1 } };
+    private static final int UNBOUNDED = Integer.MAX_VALUE / 2;
+
+    private Map map;
+    private final int numRows;
+    private final int numCols;
+    private final int clusterSize;
+    private final int clusterRows;
+    private final int clusterCols;
+
+    // Per cluster (id = cluster row * clusterCols + cluster col): its entrance cells, and the
+    // distance between each pair of them inside the cluster (e x e, row-major, -1 if not connected)
+    private int[][] entrances;
+    private int[][] intraDistances;
+    // Per cluster: transitions with its east and south neighbours, as pairs {cell here, cell there}
+    private int[][] eastTransitions;
+    private int[][] southTransitions;
+
+    private boolean[] dirty;
+    private ArrayList<Integer> dirtyClusters = new ArrayList<>();
+
+    // Scratch space for searches inside one cluster, indexed by local cell
+    // ((row - cluster's first row) * clusterSize + col - cluster's first col)
+    private int[] localDistance;
+    private int[] localOrigin;
+    private int[] localQueue;
+    private int[] partners = new int[4];
+
+    // State of the abstract search in progress: distance and parent of each entrance, only
+    // meaningful where nodeMark equals searchMark, and of the TARGET node
+    private int[][] nodeDistance;
+    private int[][] nodeParent;
+    private int[][] nodeMark;
+    private int searchMark;
+    private int searchStart;
+    private int targetDistance;
+    private int targetParent;
+    // Goals of the current search when there are at most as many as GOAL_BOUNDS entries, null
+    // otherwise. Else, per entry of GOAL_BOUNDS and cluster: smallest sRow * row + sCol * col of
+    // the goals from that cluster on in that direction (UNBOUNDED if there are none)
+    private int[] goalCells;
+    private int[][] goalBounds;
+    // entries are {f << 32 | h, node}: ties on f go to the node closer to a goal
+    private PriorityQueue<long[]> open = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+
+    public HierarchicalMap(Map map)
+    {
+        this(map, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalMap(Map map, int clusterSize)
+    {
+        this.map = map;
+        this.numRows = map.getNumRows();
+        this.numCols = map.getNumCols();
+        this.clusterSize = clusterSize;
+        this.clusterRows = (numRows + clusterSize - 1) / clusterSize;
+        this.clusterCols = (numCols + clusterSize - 1) / clusterSize;
+
+        int numClusters = clusterRows * clusterCols;
+        entrances = new int[numClusters][];
+        intraDistances = new int[numClusters][];
+        nodeDistance = new int[numClusters][];
+        nodeParent = new int[numClusters][];
+        nodeMark = new int[numClusters][];
+        eastTransitions = new int[numClusters][];
+        southTransitions = new int[numClusters][];
+        dirty = new boolean[numClusters];
+        goalBounds = new int[GOAL_BOUNDS.length][numClusters];
+
+        localDistance = new int[clusterSize * clusterSize];
+        localOrigin = new int[clusterSize * clusterSize];
+        localQueue = new int[clusterSize * clusterSize];
+
+        for (int cluster = 0; cluster < numClusters; cluster++)
+            markDirty(cluster);
+        rebuildDirtyClusters();
+
+        map.setChangeListener(this);
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    /* Follows another map of the same size from now on (e.g. a newer copy received from the simulator),
+       rebuilding the clusters whose traps differ from the current map */
+    public void setMap(Map newMap)
+    {
+        if (newMap == map)
+            return;
+        if (newMap.getNumRows() != numRows || newMap.getNumCols() != numCols)
+            throw new IllegalArgumentException("Map size differs from the hierarchy's");
+
+        // copies still sharing their trap index hand out the very same list: nothing to compare
+        if (newMap.getTrapsPositions() != map.getTrapsPositions())
+            markTrapDifferences(map, newMap);
+
+        if (map.getChangeListener() == this)
+            map.setChangeListener(null);
+        map = newMap;
+        map.setChangeListener(this);
+    }
+
+    /* Marks dirty the clusters where the traps of both maps differ. Both trap lists are in
+       row-major order, so the differences come out of a single merge pass */
+    private void markTrapDifferences(Map oldMap, Map newMap)
+    {
+        Iterator<Position> i = oldMap.getTrapsPositions().iterator();
+        Iterator<Position> j = newMap.getTrapsPositions().iterator();
+        int a = i.hasNext() ? oldMap.cellId(i.next()) : Integer.MAX_VALUE;
+        int b = j.hasNext() ? newMap.cellId(j.next()) : Integer.MAX_VALUE;
+        while (a != Integer.MAX_VALUE || b != Integer.MAX_VALUE)
+        {
+            if (a == b) {
+                a = i.hasNext() ? oldMap.cellId(i.next()) : Integer.MAX_VALUE;
+                b = j.hasNext() ? newMap.cellId(j.next()) : Integer.MAX_VALUE;
+            } else if (a < b) {
+                markDirty(clusterOf(a));
+                a = i.hasNext() ? oldMap.cellId(i.next()) : Integer.MAX_VALUE;
+            } else {
+                markDirty(clusterOf(b));
+                b = j.hasNext() ? newMap.cellId(j.next()) : Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    @Override
+    public void cellChanged(Map map, int cell, int previous, int value)
+    {
+        if ((previous == 2) != (value == 2))
+            markDirty(clusterOf(cell));
+    }
+
+    /**
+     Searches the abstract graph for a path from "from" to the closest of "goals".
+     * @return the waypoints after "from": entrance cells and, last, the goal cell reached.
+     Each waypoint is either in the same cluster as the previous one or right next to it
+     (see refine), or null when no goal can be reached
+     */
+    public LinkedList<Integer> findAbstractPath(Position from, Collection<Position> goals)
+    {
+        rebuildDirtyClusters();
+
+        int start = map.cellId(from);
+        int startCluster = clusterOf(start);
+
+        // Cost of leaving the abstract graph to a goal from each entrance of the clusters with goals
+        HashMap<Integer, ArrayList<Integer>> goalsByCluster = new HashMap<>();
+        for (Position goal : goals)
+        {
+            int cell = map.cellId(goal);
+            if (cell == start)
+            {
+                LinkedList<Integer> path = new LinkedList<>();
+                path.add(cell);
+                return path;
+            }
+            goalsByCluster.computeIfAbsent(clusterOf(cell), k -> new ArrayList<>()).add(cell);
+        }
+        HashMap<Integer, int[]> goalExits = new HashMap<>(); // entrance -> {distance, goal cell}
+        for (java.util.Map.Entry<Integer, ArrayList<Integer>> entry : goalsByCluster.entrySet())
+        {
+            int cluster = entry.getKey();
+            searchCluster(cluster, entry.getValue());
+            for (int entrance : entrances[cluster])
+            {
+                int local = localIndex(cluster, entrance);
+                if (localDistance[local] >= 0)
+                    goalExits.put(entrance, new int[] { localDistance[local], localOrigin[local] });
+            }
+        }
+
+        // A* over the entrances, plus "from" and the TARGET node standing for the goals, guided by
+        // (a lower bound of) the Manhattan distance to the closest goal
+        goalCells = null;
+        if (goals.size() <= GOAL_BOUNDS.length)
+        {
+            goalCells = new int[goals.size()];
+            int numGoals = 0;
+            for (ArrayList<Integer> cells : goalsByCluster.values())
+                for (int cell : cells)
+                    goalCells[numGoals++] = cell;
+        }
+        else
+        {
+            computeGoalBounds(goalsByCluster.values());
+        }
+
+        searchMark++;
+        searchStart = start;
+        targetDistance = Integer.MAX_VALUE;
+        open.clear();
+        int targetGoal = -1;
+
+        // edges out of "from": everything it reaches without leaving its cluster
+        ArrayList<Integer> startSources = new ArrayList<>();
+        startSources.add(start);
+        searchCluster(startCluster, startSources);
+        for (int entrance : entrances[startCluster])
+            relax(entrance, localDistance[localIndex(startCluster, entrance)], start);
+        ArrayList<Integer> localGoals = goalsByCluster.get(startCluster);
+        if (localGoals != null)
+        {
+            for (int goal : localGoals)
+            {
+                int d = localDistance[localIndex(startCluster, goal)];
+                if (d >= 0 && relax(TARGET, d, start))
+                    targetGoal = goal;
+            }
+        }
+        int numPartners = partnersOf(start);
+        for (int k = 0; k < numPartners; k++)
+            relax(partners[k], 1, start);
+
+        while (!open.isEmpty())
+        {
+            long[] entry = open.poll();
+            int node = (int) entry[1];
+            int d = (int) (entry[0] >>> 32) - (int) entry[0];
+
+            if (node == TARGET)
+                return reconstructPath(start, targetGoal);
+
+            int cluster = clusterOf(node);
+            int index = indexOf(entrances[cluster], node);
+            if (d > nodeDistance[cluster][index])
+                continue; // already settled with a shorter distance
+
+            int[] clusterEntrances = entrances[cluster];
+            int e = clusterEntrances.length;
+            for (int k = 0; k < e; k++)
+            {
+                int intra = intraDistances[cluster][index * e + k];
+                if (intra > 0)
+                    relax(clusterEntrances[k], d + intra, node);
+            }
+
+            numPartners = partnersOf(node);
+            for (int k = 0; k < numPartners; k++)
+                relax(partners[k], d + 1, node);
+
+            int[] exit = goalExits.get(node);
+            if (exit != null && relax(TARGET, d + exit[0], node))
+                targetGoal = exit[1];
+        }
+
+        return null;
+    }
+
+    /* Cells to walk from "from" to the next waypoint "to" of an abstract path, "from" excluded and
+       "to" included, following a shortest way inside the cluster of "to". Returns null when
+       "to" cannot be reached that way (e.g. a trap appeared in between) */
+    public LinkedList<Position> refine(Position from, int to)
+    {
+        int fromCell = map.cellId(from);
+        LinkedList<Position> leg = new LinkedList<>();
+        if (fromCell == to)
+            return leg;
+
+        int cluster = clusterOf(to);
+        ArrayList<Integer> sources = new ArrayList<>();
+        sources.add(to);
+        searchCluster(cluster, sources);
+
+        // walk down the distance field towards "to", taking neighbours in the navigator's order
+        int current = fromCell;
+        int currentDistance = Integer.MAX_VALUE;
+        while (current != to)
+        {
+            int row = current / numCols;
+            int col = current % numCols;
+            int[][] moves = { { row - 1, col }, { row + 1, col }, { row, col - 1 }, { row, col + 1 } };
+
+            int next = -1;
+            for (int[] move : moves)
+            {
+                if (move[0] < 0 || move[0] >= numRows || move[1] < 0 || move[1] >= numCols)
+                    continue;
+                int cell = move[0] * numCols + move[1];
+                if (clusterOf(cell) != cluster)
+                    continue;
+                int d = localDistance[localIndex(cluster, cell)];
+                if (d >= 0 && d < currentDistance && (next == -1 || d < localDistance[localIndex(cluster, next)]))
+                    next = cell;
+            }
+            if (next == -1)
+                return null;
+
+            leg.add(map.positionOf(next));
+            current = next;
+            currentDistance = localDistance[localIndex(cluster, next)];
+        }
+
+        return leg;
+    }
+
+    /* Lowers the distance of an abstract node to "d" through "from", if shorter, queueing it again */
+    private boolean relax(int node, int d, int from)
+    {
+        if (d < 0 || node == searchStart)
+            return false;
+
+        if (node == TARGET)
+        {
+            if (targetDistance <= d)
+                return false;
+            targetDistance = d;
+            targetParent = from;
+        } else {
+            int cluster = clusterOf(node);
+            int index = indexOf(entrances[cluster], node);
+            if (nodeMark[cluster][index] == searchMark && nodeDistance[cluster][index] <= d)
+                return false;
+            nodeMark[cluster][index] = searchMark;
+            nodeDistance[cluster][index] = d;
+            nodeParent[cluster][index] = from;
+        }
+
+        int h = heuristic(node);
+        open.add(new long[] { ((long) (d + h) << 32) | h, node });
+        return true;
+    }
+
+    /* Lower bound of the Manhattan distance to the closest goal of the current search, never more
+       than the actual cost as every abstract edge costs at least the Manhattan distance between
+       its ends. With few goals it is the distance to each, compared; else it is made of the
+       bounds of computeGoalBounds, so that it costs the same whatever the number of goals */
+    private int heuristic(int node)
+    {
+        if (node == TARGET)
+            return 0;
+
+        int row = node / numCols;
+        int col = node % numCols;
+        if (goalCells != null)
+        {
+            int best = Integer.MAX_VALUE;
+            for (int goal : goalCells)
+                best = Math.min(best, Math.abs(goal / numCols - row) + Math.abs(goal % numCols - col));
+            return best;
+        }
+
+        int clusterRow = row / clusterSize;
+        int clusterCol = col / clusterSize;
+        int best = UNBOUNDED;
+        for (int k = 0; k < GOAL_BOUNDS.length; )
+        {
+            // consecutive bounds of the same clusters: each is a lower bound, so the largest is kept
+            int dRow = GOAL_BOUNDS[k][0];
+            int dCol = GOAL_BOUNDS[k][1];
+            int nextRow = clusterRow + dRow;
+            int nextCol = clusterCol + dCol;
+            boolean inside = nextRow >= 0 && nextRow < clusterRows && nextCol >= 0 && nextCol < clusterCols;
+            int cluster = nextRow * clusterCols + nextCol;
+            int bound = 0;
+            for (; k < GOAL_BOUNDS.length && GOAL_BOUNDS[k][0] == dRow && GOAL_BOUNDS[k][1] == dCol; k++)
+            {
+                if (!inside || goalBounds[k][cluster] == UNBOUNDED)
+                    bound = UNBOUNDED;
+                else if (bound != UNBOUNDED)
+                    bound = Math.max(bound, goalBounds[k][cluster] - GOAL_BOUNDS[k][2] * row - GOAL_BOUNDS[k][3] * col);
+            }
+            best = Math.min(best, bound);
+        }
+        return best;
+    }
+
+    /* Fills goalBounds for "goals" (cells, by cluster). The goals are split by where their cluster
+       lies from the node's: the same cluster, a diagonal direction or straight along its row or
+       column of clusters. For a goal that way, sRow * (goal row - row) + sCol * (goal col - col)
+       is never more than its distance, and equal to it with the signs of the direction, so the
+       bound of each way only needs the smallest sRow * row + sCol * col of its goals. Each goal
+       lowers the bounds of its cluster, then each way is swept from the far side of the map so that
+       every cluster also gets the bounds of the clusters beyond it */
+    private void computeGoalBounds(Collection<ArrayList<Integer>> goals)
+    {
+        for (int[] bounds : goalBounds)
+            Arrays.fill(bounds, UNBOUNDED);
+        for (ArrayList<Integer> cells : goals)
+        {
+            for (int cell : cells)
+            {
+                int row = cell / numCols;
+                int col = cell % numCols;
+                int cluster = clusterOf(cell);
+                for (int k = 0; k < GOAL_BOUNDS.length; k++)
+                    goalBounds[k][cluster] = Math.min(goalBounds[k][cluster], GOAL_BOUNDS[k][2] * row + GOAL_BOUNDS[k][3] * col);
+            }
+        }
+
+        for (int k = 0; k < GOAL_BOUNDS.length; k++)
+        {
+            int dRow = GOAL_BOUNDS[k][0];
+            int dCol = GOAL_BOUNDS[k][1];
+            if (dRow == 0 && dCol == 0)
+                continue;
+            int[] bounds = goalBounds[k];
+            for (int i = 0; i < clusterRows; i++)
+            {
+                // a row of clusters takes the bounds of the row beyond it, then of the clusters beyond along the row
+                int first = (dRow > 0 ? clusterRows - 1 - i : i) * clusterCols;
+                if (dRow != 0 && i > 0)
+                {
+                    int beyond = first + dRow * clusterCols;
+                    for (int col = 0; col < clusterCols; col++)
+                        bounds[first + col] = Math.min(bounds[first + col], bounds[beyond + col]);
+                }
+                if (dCol > 0)
+                {
+                    for (int col = clusterCols - 2; col >= 0; col--)
+                        bounds[first + col] = Math.min(bounds[first + col], bounds[first + col + 1]);
+                }
+                else if (dCol < 0)
+                {
+                    for (int col = 1; col < clusterCols; col++)
+                        bounds[first + col] = Math.min(bounds[first + col], bounds[first + col - 1]);
+                }
+            }
+        }
+    }
+
+    private LinkedList<Integer> reconstructPath(int start, int goal)
+    {
+        LinkedList<Integer> path = new LinkedList<>();
+        path.add(goal);
+        for (int node = targetParent; node != start; )
+        {
+            if (node != path.getFirst())
+                path.addFirst(node);
+            int cluster = clusterOf(node);
+            node = nodeParent[cluster][indexOf(entrances[cluster], node)];
+        }
+        return path;
+    }
+
+    private void markDirty(int cluster)
+    {
+        if (!dirty[cluster])
+        {
+            dirty[cluster] = true;
+            dirtyClusters.add(cluster);
+        }
+    }
+
+    /* Recomputes the transitions on every border of the dirty clusters, then the entrances and
+       intra-cluster distances of the dirty clusters and of their neighbours across those borders */
+    private void rebuildDirtyClusters()
+    {
+        if (dirtyClusters.isEmpty())
+            return;
+
+        for (int cluster : new ArrayList<>(dirtyClusters))
+        {
+            int clusterRow = cluster / clusterCols;
+            int clusterCol = cluster % clusterCols;
+
+            computeTransitions(cluster);
+            if (clusterCol > 0) {
+                computeTransitions(cluster - 1);
+                markDirty(cluster - 1);
+            }
+            if (clusterRow > 0) {
+                computeTransitions(cluster - clusterCols);
+                markDirty(cluster - clusterCols);
+            }
+            if (clusterCol < clusterCols - 1)
+                markDirty(cluster + 1);
+            if (clusterRow < clusterRows - 1)
+                markDirty(cluster + clusterCols);
+        }
+
+        for (int cluster : dirtyClusters)
+        {
+            computeEntrances(cluster);
+            dirty[cluster] = false;
+        }
+        dirtyClusters.clear();
+    }
+
+    /* Transitions of a cluster with its east and south neighbours */
+    private void computeTransitions(int cluster)
+    {
+        int firstRow = (cluster / clusterCols) * clusterSize;
+        int firstCol = (cluster % clusterCols) * clusterSize;
+        int height = Math.min(clusterSize, numRows - firstRow);
+        int width = Math.min(clusterSize, numCols - firstCol);
+
+        int lastCol = firstCol + width - 1;
+        eastTransitions[cluster] = lastCol + 1 < numCols
+                ? findOpenings(firstRow * numCols + lastCol, numCols, height, 1)
+                : new int[0];
+
+        int lastRow = firstRow + height - 1;
+        southTransitions[cluster] = lastRow + 1 < numRows
+                ? findOpenings(lastRow * numCols + firstCol, 1, width, numCols)
+                : new int[0];
+    }
+
+    /* Scans "length" border cells starting at "first" and moving "step" at a time, whose neighbour
+       across the border is "across" cells further, and returns the transitions of the openings found */
+    private int[] findOpenings(int first, int step, int length, int across)
+    {
+        int[] found = new int[4 * length];
+        int count = 0;
+        int runStart = -1;
+        for (int k = 0; k <= length; k++)
+        {
+            int cell = first + k * step;
+            boolean open = k < length && walkable(cell) && walkable(cell + across);
+            if (open) {
+                if (runStart == -1)
+                    runStart = k;
+            } else if (runStart != -1) {
+                int runEnd = k - 1;
+                if (runEnd - runStart + 1 >= WIDE_OPENING) {
+                    found[count++] = first + runStart * step;
+                    found[count++] = first + runStart * step + across;
+                    found[count++] = first + runEnd * step;
+                    found[count++] = first + runEnd * step + across;
+                } else {
+                    int middle = (runStart + runEnd) / 2;
+                    found[count++] = first + middle * step;
+                    found[count++] = first + middle * step + across;
+                }
+                runStart = -1;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /* Entrances of a cluster from the transitions on its four borders, and the distances between them */
+    private void computeEntrances(int cluster)
+    {
+        int clusterRow = cluster / clusterCols;
+        int clusterCol = cluster % clusterCols;
+
+        int[] cells = new int[0];
+        cells = addEntrances(cells, eastTransitions[cluster], 0);
+        cells = addEntrances(cells, southTransitions[cluster], 0);
+        if (clusterCol > 0)
+            cells = addEntrances(cells, eastTransitions[cluster - 1], 1);
+        if (clusterRow > 0)
+            cells = addEntrances(cells, southTransitions[cluster - clusterCols], 1);
+        entrances[cluster] = cells;
+
+        int e = cells.length;
+        int[] distances = new int[e * e];
+        ArrayList<Integer> sources = new ArrayList<>();
+        for (int k = 0; k < e; k++)
+        {
+            sources.clear();
+            sources.add(cells[k]);
+            searchCluster(cluster, sources);
+            for (int l = 0; l < e; l++)
+                distances[k * e + l] = localDistance[localIndex(cluster, cells[l])];
+        }
+        intraDistances[cluster] = distances;
+        nodeDistance[cluster] = new int[e];
+        nodeParent[cluster] = new int[e];
+        nodeMark[cluster] = new int[e];
+    }
+
+    /* Adds the cells at "side" (0 or 1) of each transition pair, skipping the ones already there */
+    private static int[] addEntrances(int[] cells, int[] transitions, int side)
+    {
+        for (int k = side; k < transitions.length; k += 2)
+        {
+            if (indexOf(cells, transitions[k]) == -1)
+            {
+                cells = Arrays.copyOf(cells, cells.length + 1);
+                cells[cells.length - 1] = transitions[k];
+            }
+        }
+        return cells;
+    }
+
+    /* Cells across a border from "cell" that it has a transition with, written into "partners" */
+    private int partnersOf(int cell)
+    {
+        int cluster = clusterOf(cell);
+        int count = 0;
+        count = collectPartners(eastTransitions[cluster], cell, 0, count);
+        count = collectPartners(southTransitions[cluster], cell, 0, count);
+        if (cluster % clusterCols > 0)
+            count = collectPartners(eastTransitions[cluster - 1], cell, 1, count);
+        if (cluster / clusterCols > 0)
+            count = collectPartners(southTransitions[cluster - clusterCols], cell, 1, count);
+        return count;
+    }
+
+    private int collectPartners(int[] transitions, int cell, int side, int count)
+    {
+        for (int k = side; k < transitions.length; k += 2)
+        {
+            if (transitions[k] == cell)
+                partners[count++] = transitions[k ^ 1];
+        }
+        return count;
+    }
+
+    /* Breadth-first search from "sources" without leaving the cluster nor stepping on traps.
+       Leaves in localDistance the distance of each cell of the cluster to the closest source
+       (-1 if not reached) and in localOrigin that source */
+    private void searchCluster(int cluster, ArrayList<Integer> sources)
+    {
+        int firstRow = (cluster / clusterCols) * clusterSize;
+        int firstCol = (cluster % clusterCols) * clusterSize;
+        int height = Math.min(clusterSize, numRows - firstRow);
+        int width = Math.min(clusterSize, numCols - firstCol);
+
+        Arrays.fill(localDistance, -1);
+        int head = 0;
+        int tail = 0;
+        for (int source : sources)
+        {
+            int local = localIndex(cluster, source);
+            if (localDistance[local] == -1)
+            {
+                localDistance[local] = 0;
+                localOrigin[local] = source;
+                localQueue[tail++] = local;
+            }
+        }
+
+        while (head < tail)
+        {
+            int local = localQueue[head++];
+            int row = local / clusterSize;
+            int col = local % clusterSize;
+
+            for (int k = 0; k < 4; k++)
+            {
+                int nextRow = row + (k == 0 ? -1 : k == 1 ? 1 : 0);
+                int nextCol = col + (k == 2 ? -1 : k == 3 ? 1 : 0);
+                if (nextRow < 0 || nextRow >= height || nextCol < 0 || nextCol >= width)
+                    continue;
+
+                int next = nextRow * clusterSize + nextCol;
+                if (localDistance[next] != -1 || !walkable((firstRow + nextRow) * numCols + firstCol + nextCol))
+                    continue;
+
+                localDistance[next] = localDistance[local] + 1;
+                localOrigin[next] = localOrigin[local];
+                localQueue[tail++] = next;
+            }
+        }
+    }
+
+    private boolean walkable(int cell)
+    {
+        return !map.isTrapCell(cell);
+    }
+
+    private int clusterOf(int cell)
+    {
+        return (cell / numCols / clusterSize) * clusterCols + (cell % numCols) / clusterSize;
+    }
+
+    private int localIndex(int cluster, int cell)
+    {
+        int row = cell / numCols - (cluster / clusterCols) * clusterSize;
+        int col = cell % numCols - (cluster % clusterCols) * clusterSize;
+        return row * clusterSize + col;
+    }
+
+    private static int indexOf(int[] cells, int cell)
+    {
+        for (int k = 0; k < cells.length; k++)
+        {
+            if (cells[k] == cell)
+                return k;
+        }
+        return -1;
+    }
+}
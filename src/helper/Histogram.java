@@ -0,0 +1,96 @@
+package helper;
+
+import java.util.Arrays;
+
+/* Distribution of non-negative values (latencies in nanoseconds, sizes in bytes) kept in
+   log-linear buckets, as HdrHistogram does: values below SUB_BUCKETS have a bucket each, and
+   every power of two above is split in SUB_BUCKETS equal buckets, so percentiles are exact for
+   small values and within 1/SUB_BUCKETS (about 3%) of the real value otherwise.
+
+   Recording a value is a few arithmetic operations and an array increment, with no allocation
+   except when a value larger than any before needs more buckets. Not thread-safe: each
+   histogram is meant to be written by a single thread */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts = new long[2 * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long value)
+    {
+        if (value < 0)
+            value = 0;
+
+        int bucket = bucketOf(value);
+        if (bucket >= counts.length)
+            counts = Arrays.copyOf(counts, Math.max(bucket + 1, counts.length * 2));
+
+        counts[bucket]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getMin()
+    {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+
+    public double getMean()
+    {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /* Smallest recorded value such that "percentile" % of the values are lower or equal, up to
+       the precision of the buckets (0 when nothing has been recorded) */
+    public long getPercentile(double percentile)
+    {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++)
+        {
+            seen += counts[bucket];
+            if (seen >= rank)
+                return Math.min(max, Math.max(min, highestValueIn(bucket)));
+        }
+        return max;
+    }
+
+    private static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestValueIn(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,163 @@
+package helper;
+
+import java.util.Arrays;
+
+/* Binary min-heap over integer ids in [0, capacity), typically map cell ids, with
+   O(log n) insertion, decrease-key (any key update, really) and removal of arbitrary ids.
+   Keys are longs so that composite priorities (e.g. f and a tie-breaker) can be packed
+   in one value. Ids with the same key come out in no particular order.
+   Nothing is allocated after construction, and clear() only touches the ids still queued,
+   so one instance can be reused across searches */
+public class IndexedMinHeap {
+
+    private final int[] heap;     // heap slot -> id
+    private final int[] slot;     // id -> heap slot, -1 when not queued
+    private final long[] keys;    // id -> key, only meaningful while queued
+    private int size;
+
+    public IndexedMinHeap(int capacity)
+    {
+        heap = new int[capacity];
+        slot = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(slot, -1);
+    }
+
+    public int capacity()
+    {
+        return heap.length;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean contains(int id)
+    {
+        return slot[id] != -1;
+    }
+
+    public long getKey(int id)
+    {
+        return keys[id];
+    }
+
+    /* Id with the smallest key, the heap must not be empty */
+    public int peek()
+    {
+        return heap[0];
+    }
+
+    public long peekKey()
+    {
+        return keys[heap[0]];
+    }
+
+    /* Queues "id" with the given key, or changes its key if it is already queued */
+    public void update(int id, long key)
+    {
+        if (slot[id] == -1)
+        {
+            keys[id] = key;
+            heap[size] = id;
+            slot[id] = size;
+            siftUp(size++);
+            return;
+        }
+
+        long previous = keys[id];
+        keys[id] = key;
+        if (key < previous)
+            siftUp(slot[id]);
+        else if (key > previous)
+            siftDown(slot[id]);
+    }
+
+    /* Removes and returns the id with the smallest key, the heap must not be empty */
+    public int poll()
+    {
+        int top = heap[0];
+        removeAt(0);
+        return top;
+    }
+
+    public void remove(int id)
+    {
+        if (slot[id] != -1)
+            removeAt(slot[id]);
+    }
+
+    public void clear()
+    {
+        for (int k = 0; k < size; k++)
+            slot[heap[k]] = -1;
+        size = 0;
+    }
+
+    private void removeAt(int index)
+    {
+        int removed = heap[index];
+        slot[removed] = -1;
+        size--;
+        if (index == size)
+            return;
+
+        int last = heap[size];
+        heap[index] = last;
+        slot[last] = index;
+        siftDown(index);
+        if (heap[index] == last)
+            siftUp(index);
+    }
+
+    private void siftUp(int index)
+    {
+        int id = heap[index];
+        long key = keys[id];
+        while (index > 0)
+        {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+            if (keys[parent] <= key)
+                break;
+
+            heap[index] = parent;
+            slot[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = id;
+        slot[id] = index;
+    }
+
+    private void siftDown(int index)
+    {
+        int id = heap[index];
+        long key = keys[id];
+        int half = size >>> 1;
+        while (index < half)
+        {
+            int childIndex = 2 * index + 1;
+            int child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && keys[heap[rightIndex]] < keys[child])
+            {
+                childIndex = rightIndex;
+                child = heap[childIndex];
+            }
+            if (key <= keys[child])
+                break;
+
+            heap[index] = child;
+            slot[child] = index;
+            index = childIndex;
+        }
+        heap[index] = id;
+        slot[id] = index;
+    }
+}
@@ -0,0 +1,184 @@
+package helper;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/* Jump distances of a map for Jump Point Search on 4-connected grids (JPS+): for every walkable
+   cell and direction, how far the first jump point is when going straight from that cell
+   (included), so that a jump costs a lookup instead of a walk along the row or column.
+
+   Jump points here do not depend on the goal. Going along a row, they are the cells where a trap
+   behind on either side opens a turn. Going along a column they are the same cells for columns,
+   plus the cells from which a jump along the row would find a jump point. JPSPlanner adds the
+   goal itself, which only needs the distances below.
+
+   get(cell, direction) is the distance (0 for the cell itself) to the first jump point, or -n
+   when there is none before a trap or the edge of the map, n being the number of walkable cells
+   from "cell" to there, or BLOCKED if the cell is a trap. Distances only depend on the traps: they are computed again, in one pass
+   over the map, when the traps of the map followed differ from the ones they were computed for */
+public class JumpDistances {
+
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    public static final int BLOCKED = Integer.MIN_VALUE;
+
+    private final int numRows;
+    private final int numCols;
+    private final int[][] distances = new int[4][];
+
+    private Map map;
+    private LinkedList<Position> traps; // trap view of the map the distances were computed for
+
+    public JumpDistances(Map map)
+    {
+        this.map = map;
+        numRows = map.getNumRows();
+        numCols = map.getNumCols();
+        for (int direction = 0; direction < 4; direction++)
+            distances[direction] = new int[numRows * numCols];
+
+        compute();
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    /* Follows "newMap" (e.g. a newer copy received from the simulator, or the same map after it
+       changed), computing the distances again if its traps differ */
+    public void setMap(Map newMap)
+    {
+        if (newMap.getNumRows() != numRows || newMap.getNumCols() != numCols)
+            throw new IllegalArgumentException("Map size differs from the jump distances'");
+
+        // copies still sharing their trap index hand out the very same list: nothing to compare
+        LinkedList<Position> newTraps = newMap.getTrapsPositions();
+        boolean changed = newTraps != traps && !sameCells(traps, newTraps);
+        map = newMap;
+        if (changed)
+            compute();
+        else
+            traps = newTraps;
+    }
+
+    public int get(int cell, int direction)
+    {
+        return distances[direction][cell];
+    }
+
+    private void compute()
+    {
+        traps = map.getTrapsPositions();
+        int[] up = distances[UP];
+        int[] down = distances[DOWN];
+        int[] left = distances[LEFT];
+        int[] right = distances[RIGHT];
+
+        // Along the rows, both ways
+        for (int row = 0; row < numRows; row++)
+        {
+            int jumpPoint = -1;
+            int run = 0;
+            for (int col = numCols - 1; col >= 0; col--)
+            {
+                if (!walkable(row, col)) {
+                    right[row * numCols + col] = BLOCKED;
+                    jumpPoint = -1;
+                    run = 0;
+                    continue;
+                }
+                run++;
+                jumpPoint = forcedAlongRow(row, col, 1) ? 0 : (jumpPoint >= 0 ? jumpPoint + 1 : -1);
+                right[row * numCols + col] = jumpPoint >= 0 ? jumpPoint : -run;
+            }
+
+            jumpPoint = -1;
+            run = 0;
+            for (int col = 0; col < numCols; col++)
+            {
+                if (!walkable(row, col)) {
+                    left[row * numCols + col] = BLOCKED;
+                    jumpPoint = -1;
+                    run = 0;
+                    continue;
+                }
+                run++;
+                jumpPoint = forcedAlongRow(row, col, -1) ? 0 : (jumpPoint >= 0 ? jumpPoint + 1 : -1);
+                left[row * numCols + col] = jumpPoint >= 0 ? jumpPoint : -run;
+            }
+        }
+
+        // Along the columns, a row at a time (with the state of every column) to follow the storage order
+        int[] jumpPoints = new int[numCols];
+        int[] runs = new int[numCols];
+        for (int pass = 0; pass < 2; pass++)
+        {
+            int dRow = pass == 0 ? 1 : -1;
+            int[] target = pass == 0 ? down : up;
+            Arrays.fill(jumpPoints, -1);
+            Arrays.fill(runs, 0);
+            for (int k = 0; k < numRows; k++)
+            {
+                int row = dRow > 0 ? numRows - 1 - k : k;
+                for (int col = 0; col < numCols; col++)
+                {
+                    if (!walkable(row, col)) {
+                        target[row * numCols + col] = BLOCKED;
+                        jumpPoints[col] = -1;
+                        runs[col] = 0;
+                        continue;
+                    }
+                    runs[col]++;
+                    jumpPoints[col] = stopAlongColumn(row, col, dRow) ? 0 : (jumpPoints[col] >= 0 ? jumpPoints[col] + 1 : -1);
+                    target[row * numCols + col] = jumpPoints[col] >= 0 ? jumpPoints[col] : -runs[col];
+                }
+            }
+        }
+    }
+
+    /* A trap behind us on the side opens a shortest path that turns here */
+    private boolean forcedAlongRow(int row, int col, int dCol)
+    {
+        return (walkable(row - 1, col) && !walkable(row - 1, col - dCol))
+            || (walkable(row + 1, col) && !walkable(row + 1, col - dCol));
+    }
+
+    /* Same for columns, and horizontal moves are only considered from jump points, so also stop
+       wherever a jump along the row would find one (the row distances are already known) */
+    private boolean stopAlongColumn(int row, int col, int dRow)
+    {
+        return (walkable(row, col - 1) && !walkable(row - dRow, col - 1))
+            || (walkable(row, col + 1) && !walkable(row - dRow, col + 1))
+            || (walkable(row, col + 1) && distances[RIGHT][row * numCols + col + 1] >= 0)
+            || (walkable(row, col - 1) && distances[LEFT][row * numCols + col - 1] >= 0);
+    }
+
+    private boolean walkable(int row, int col)
+    {
+        return map.withinMapLimits(row, col) && !map.isTrapCell(row * numCols + col);
+    }
+
+    private static boolean sameCells(LinkedList<Position> a, LinkedList<Position> b)
+    {
+        if (a == null || a.size() != b.size())
+            return false;
+
+        Iterator<Position> i = a.iterator();
+        for (Position pos : b)
+        {
+            if (!pos.equals(i.next()))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,181 @@
+package helper;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Leveled logging for the agents and helpers, written to the console by a background thread.
+
+   Messages below the current level are dropped before anything is formatted, so a disabled
+   call costs a comparison. Messages built from expensive arguments (maps, states...) or logged
+   on every round should still be guarded with isEnabled/isDebugEnabled, which also avoids the
+   varargs array. Enabled messages are formatted by the caller, so later changes to the arguments
+   do not show. They are then queued in a bounded ring buffer that a daemon thread drains to
+   standard output in batches. Callers only wait when the buffer is full. flush() waits until
+   everything queued so far is written, and it runs on its own when the JVM exits.
+
+   The level is global to the JVM: INFO unless the log.level system property or the simulator's
+   log option says otherwise */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final int CAPACITY = 8192;
+
+    private static volatile Level level = parseLevel(System.getProperty("log.level"), Level.INFO);
+
+    private static final ArrayBlockingQueue<String> buffer = new ArrayBlockingQueue<String>(CAPACITY);
+    private static final AtomicLong queued = new AtomicLong();
+    private static long written; // guarded by Log.class
+
+    static {
+        Thread writer = new Thread(Log::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+    }
+
+    private Log() {}
+
+    public static Level getLevel()
+    {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel)
+    {
+        level = newLevel;
+    }
+
+    /* Level named "name" (case insensitive), or "defaultLevel" if there is no such level */
+    public static Level parseLevel(String name, Level defaultLevel)
+    {
+        if (name != null)
+        {
+            for (Level candidate : Level.values())
+            {
+                if (candidate.name().equalsIgnoreCase(name.trim()))
+                    return candidate;
+            }
+        }
+        return defaultLevel;
+    }
+
+    public static boolean isEnabled(Level messageLevel)
+    {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != Level.OFF;
+    }
+
+    public static boolean isDebugEnabled()
+    {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public static void log(Level messageLevel, String format, Object... args)
+    {
+        if (isEnabled(messageLevel))
+            enqueue(messageLevel, format, args);
+    }
+
+    public static void debug(String format, Object... args)
+    {
+        if (isEnabled(Level.DEBUG))
+            enqueue(Level.DEBUG, format, args);
+    }
+
+    public static void info(String format, Object... args)
+    {
+        if (isEnabled(Level.INFO))
+            enqueue(Level.INFO, format, args);
+    }
+
+    public static void warn(String format, Object... args)
+    {
+        if (isEnabled(Level.WARN))
+            enqueue(Level.WARN, format, args);
+    }
+
+    public static void error(String format, Object... args)
+    {
+        if (isEnabled(Level.ERROR))
+            enqueue(Level.ERROR, format, args);
+    }
+
+    /* Message followed by the stack trace of "error" */
+    public static void error(String message, Throwable error)
+    {
+        if (!isEnabled(Level.ERROR))
+            return;
+
+        StringWriter trace = new StringWriter();
+        error.printStackTrace(new PrintWriter(trace));
+        enqueue(Level.ERROR, "%s%n%s", new Object[] { message, trace.toString().stripTrailing() });
+    }
+
+    /* Waits (up to a few seconds) until every message queued so far has been written */
+    public static void flush()
+    {
+        long target = queued.get();
+        long deadline = System.currentTimeMillis() + 5000;
+        synchronized (Log.class)
+        {
+            while (written < target && System.currentTimeMillis() < deadline)
+            {
+                try {
+                    Log.class.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void enqueue(Level messageLevel, String format, Object[] args)
+    {
+        String message = args.length == 0 ? format : String.format(format, args);
+        if (messageLevel == Level.WARN || messageLevel == Level.ERROR)
+            message = messageLevel + ": " + message;
+
+        queued.incrementAndGet();
+        try {
+            buffer.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            messageWritten(1); // dropped, do not make flush wait for it
+        }
+    }
+
+    /* Body of the writer thread: writes the queued messages in batches, one console write each */
+    private static void drain()
+    {
+        ArrayList<String> batch = new ArrayList<String>();
+        StringBuilder text = new StringBuilder();
+        while (true)
+        {
+            try {
+                batch.add(buffer.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            buffer.drainTo(batch);
+
+            for (String message : batch)
+                text.append(message).append(System.lineSeparator());
+            System.out.print(text);
+            System.out.flush();
+
+            messageWritten(batch.size());
+            batch.clear();
+            text.setLength(0);
+        }
+    }
+
+    private static synchronized void messageWritten(int howMany)
+    {
+        written += howMany;
+        Log.class.notifyAll();
+    }
+}
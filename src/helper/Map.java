@@ -1,302 +1,411 @@
 package helper;
 import jade.util.leap.Serializable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Random;
-
-import config.Config;
+import java.util.TreeSet;
 
 public class Map implements Serializable, Cloneable {
 
     private int numRows;
     private int numCols;
-    private int[][] mapMatrix; // 0 represents empty position, 1 item, and 2 trap
+    private int numCells;
+    // Row-major grid (cell id = row * numCols + col): 0 represents empty position, 1 item, and 2 trap.
+    // Cells are split in fixed-size chunks that clones share until one of them writes to a chunk,
+    // which then gets its own private copy (copy-on-write). ownedChunks[c] is true when chunk c
+    // is private to this map and can be written in place
+    private byte[][] chunks;
+    private boolean[] ownedChunks;
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS; // cells per chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    public static final int MAX_SHOWN_CELLS = 10000; // see describe
     private int numTraps;
     private int numItems;
-    private Random rand;
+    // Not serialized: only the simulator's own map generates items and traps, copies sent to participants do not.
+    // The initial contents and positions come from one stream, items and traps placed later on from another
+    private transient Random rand;
+    private transient Random redistributionRand;
+
+    // Live indexes of item and trap cells, keyed by row-major cell id (row * numCols + col)
+    // so that iteration order matches a row by row scan of the map
+    private TreeSet<Integer> itemCells = new TreeSet<Integer>();
+    private TreeSet<Integer> trapCells = new TreeSet<Integer>();
+    // Like the chunks, clones share the indexes until one of them changes: a map only
+    // updates an index in place when it owns it, otherwise it takes its own copy first
+    private boolean ownedItemCells = true;
+    private boolean ownedTrapCells = true;
+    // Cached views built from the indexes, dropped whenever the corresponding index changes
+    private transient LinkedList<Position> itemPositionsView;
+    private transient LinkedList<Position> trapPositionsView;
+
+    // Pool of empty cells for O(1) random placement: freeCells[0..freeCount) holds the empty cell ids
+    // and freeSlot[cell] is the index of a cell inside freeCells (-1 when the cell is not empty).
+    // It is only needed by maps that place items/traps, so clones and deserialized copies
+    // leave it out and rebuild it on first use (see ensureFreePool)
+    private transient int[] freeCells;
+    private transient int[] freeSlot;
+    private transient int freeCount;
+
+    // Interned Position of each cell (see positionOf), allocated lazily one chunk at a time.
+    // It only depends on the dimensions, so clones share it with the original map
+    private transient Position[][] positionCache;
+
+    // Not serialized nor cloned: listeners follow one map instance
+    private transient MapChangeListener changeListener;
                     
-    public Map(int numRows, int numCols, int numItems, int numTraps) throws Exception
+    public Map(int numRows, int numCols, int numItems, int numTraps, SimulationRandom random) throws Exception
     {
-        this.numRows = numRows;
-        this.numCols = numCols;
+        this(numRows, numCols);
         this.numTraps = numTraps;
         this.numItems = numItems;
+        ensureFreePool();
+
+        rand = random.mapGeneration();
+        redistributionRand = random.redistribution();
+
+        // Generate items
+        if (placeRandomly(1, numItems, rand) != numItems)
+            throw new Exception("Unable to find empty position to accomodate for all items while generating map");
+
+        // Generate traps
+        if (placeRandomly(2, numTraps, rand) != numTraps)
+            throw new Exception("Unable to find empty position to accomodate for all traps while generating map");
+
+    }
+
+    /* Creates an empty grid */
+    private Map(int numRows, int numCols)
+    {
+        this.numRows = numRows;
+        this.numCols = numCols;
         // Initialize map to zero's
-        mapMatrix = new int[numRows][numCols];
-        for (int k = 0; k < numRows; k++)
-            for (int k1 = 0; k1 < numCols; k1++)
-                mapMatrix[k][k1] = 0;
-
-        // create instance of Random class
-        if (Config.USE_SEED) {
-            rand = new Random(Config.SEED);
-        } else {
-            rand = new Random();
+        numCells = numRows * numCols;
+        int numChunks = (numCells + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        chunks = new byte[numChunks][];
+        ownedChunks = new boolean[numChunks];
+        for (int c = 0; c < numChunks; c++)
+        {
+            chunks[c] = new byte[Math.min(CHUNK_SIZE, numCells - (c << CHUNK_BITS))];
+            ownedChunks[c] = true;
         }
+    }
 
-        // Generate items
-        int generatedItems = 0;
-        for (int k = 0; k < numItems; k++)
+    /* Creates a map with no items nor traps and no random generator,
+       used to rebuild maps received from the simulator (see StateCodec) */
+    static Map emptyMap(int numRows, int numCols, int numItems, int numTraps)
+    {
+        Map map = new Map(numRows, numCols);
+        map.numItems = numItems;
+        map.numTraps = numTraps;
+        return map;
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    /* Number of items the simulator keeps on the map */
+    public int getNumItems()
+    {
+        return numItems;
+    }
+
+    /* Number of traps the simulator keeps on the map */
+    public int getNumTraps()
+    {
+        return numTraps;
+    }
+
+    /* Row-major id of a cell inside the map */
+    public int cellId(int row, int col)
+    {
+        return row * numCols + col;
+    }
+
+    public int cellId(Position pos)
+    {
+        return pos.x * numCols + pos.y;
+    }
+
+    public int cellRow(int cell)
+    {
+        return cell / numCols;
+    }
+
+    public int cellCol(int cell)
+    {
+        return cell % numCols;
+    }
+
+    /* Position of a cell inside the map. The same instance is returned for a given cell every time
+       (and by every clone of this map), so positions obtained here must never be modified. Meant
+       for code keeping them to itself, such as the paths of planners: positions handed out to
+       other code (which may modify them, Position being mutable) should be new instances */
+    public Position positionOf(int cell)
+    {
+        if (positionCache == null)
+            positionCache = new Position[chunks.length][];
+
+        Position[] chunk = positionCache[cell >>> CHUNK_BITS];
+        if (chunk == null)
         {
-            int tempRow = rand.nextInt(numRows); // 0...numRows-1
-            int tempCol = rand.nextInt(numCols); // 0...numCols-1
-            if (mapMatrix[tempRow][tempCol] == 0)
-            {
-                mapMatrix[tempRow][tempCol] = 1;
-                generatedItems++;
-                continue;
-            }
-            else {
-                //System.out.println("Attempted position for item not empty, finding alternative...");
-                // Search for next available position
-                int newTempRow = tempRow;
-                int newTempCol = tempCol;
-                outerloop:
-                for (int k1 = 0; k1 < numRows; k1++) 
-                {
-                    for (int k2 = 0; k2 < numCols; k2++)
-                    {
-                        newTempRow = (tempRow + k1) % numRows;
-                        newTempCol = (tempCol + k2) % numCols;
-                        if (mapMatrix[newTempRow][newTempCol] == 0)
-                        {
-                            mapMatrix[newTempRow][newTempCol] = 1;
-                            generatedItems++;
-                            break outerloop;
-                        }
-                    }
-                }
-            }
+            chunk = new Position[Math.min(CHUNK_SIZE, numCells - (cell & ~CHUNK_MASK))];
+            positionCache[cell >>> CHUNK_BITS] = chunk;
         }
-        if (generatedItems != numItems)
-            throw new Exception("Unable to find empty position to accomodate for all items while generating map");
 
-        // Generate traps
-        generatedItems = 0;
-        for (int k = 0; k < numTraps; k++)
+        Position pos = chunk[cell & CHUNK_MASK];
+        if (pos == null)
         {
-            int tempRow = rand.nextInt(numRows); // 0...numRows-1
-            int tempCol = rand.nextInt(numCols); // 0...numCols-1
-            if (mapMatrix[tempRow][tempCol] == 0)
-            {
-                mapMatrix[tempRow][tempCol] = 2;
-                generatedItems++;
-                continue;
-            }
-            else {
-                //System.out.println("Attempted position for trap not empty, finding alternative...");
-                // Search for next available position
-                int newTempRow = tempRow;
-                int newTempCol = tempCol;
-                outerloop:
-                for (int k1 = 0; k1 < numRows; k1++) 
-                {
-                    for (int k2 = 0; k2 < numCols; k2++)
-                    {
-                        newTempRow = (tempRow + k1) % numRows;
-                        newTempCol = (tempCol + k2) % numCols;
-                        if (mapMatrix[newTempRow][newTempCol] == 0)
-                        {
-                            mapMatrix[newTempRow][newTempCol] = 2;
-                            generatedItems++;
-                            break outerloop;
-                        }
-                    }
-                }
-            }
+            pos = new Position(cell / numCols, cell % numCols);
+            chunk[cell & CHUNK_MASK] = pos;
         }
-        if (generatedItems != numTraps)
-            throw new Exception("Unable to find empty position to accomodate for all traps while generating map");
+        return pos;
+    }
+
+    /* Picks a uniformly random cell among the free ones, or -1 if the map is full */
+    private int pickRandomFreeCell(Random random)
+    {
+        ensureFreePool();
+        if (freeCount == 0)
+            return -1;
 
+        return freeCells[random.nextInt(freeCount)];
     }
 
-    /* Shows the map through the command line */
-    public void show() {
-        for (int k = 0; k < mapMatrix.length; k++) {
-            for (int k1 = 0; k1 < mapMatrix[k].length; k1++) {
-                System.out.print(mapMatrix[k][k1] + " ");
-            }
-            System.out.println();
+    /* Places "howMany" cells with the given value on random free cells, returns how many could be placed */
+    private int placeRandomly(int value, int howMany, Random random)
+    {
+        int placed = 0;
+        for (int k = 0; k < howMany; k++)
+        {
+            int cell = pickRandomFreeCell(random);
+            if (cell == -1)
+                break;
+
+            setCell(cell / numCols, cell % numCols, value);
+            placed++;
         }
+        return placed;
+    }
+
+    /* Builds the free-cell pool from the grid if this map does not have one yet */
+    private void ensureFreePool()
+    {
+        if (freeCells != null)
+            return;
+
+        freeCells = new int[numCells];
+        freeSlot = new int[numCells];
+        freeCount = 0;
+        for (int cell = 0; cell < numCells; cell++)
+        {
+            if (getCell(cell) == 0)
+                addToFreePool(cell);
+            else
+                freeSlot[cell] = -1;
+        }
+    }
+
+    /* Grid of the map as toString does, or only its size and contents when it has more than
+       MAX_SHOWN_CELLS cells, which keeps logs of very large maps readable (and cheap to print) */
+    public String describe()
+    {
+        if ((long) numRows * numCols <= MAX_SHOWN_CELLS)
+            return toString();
+
+        return String.format("%dx%d map with %d items and %d traps (too large to show)\n",
+            numRows, numCols, itemCells.size(), trapCells.size());
+    }
+
+    /* Shows the map through the command line, as an INFO message so that it stays in order with the log */
+    public void show() {
+        if (Log.isEnabled(Log.Level.INFO))
+            Log.info("%s", new MapRenderer(this).toString().stripTrailing());
     }
 
     /* Returns string representing the map */
     @Override
     public String toString()
     {
-        String mapStr = "";
-        for (int k = 0; k < mapMatrix.length; k++) {
-            for (int k1 = 0; k1 < mapMatrix[k].length; k1++) {
-                mapStr += mapMatrix[k][k1] + " ";
-            }
-            mapStr += "\n";
-        }
-        return mapStr;
+        return new MapRenderer(this).toString();
     }
 
     /* Returns string representing the map with certain positions colored highlighted
-       Returns positions highlighted in map with Ansi sequence escape colors
-       Warning!!: only 6 colors, otherwise colors will be ignored
+       Returns positions highlighted in map with Ansi sequence escape colors, the n-th position
+       in the n-th color of MapRenderer's palette
        Needs to be executed in command line supporting this functionality */
     public String toString(LinkedList<Position> positions)
     {
-        if (positions.size() > 6)
-        {
-            System.out.println("Warning: More than 6 positions to color, ignoring colors...");
-            return toString();
-        }
-            
-        // List of (6) AnsiColors
-        List<String> ansiColors = Arrays.asList("\033[0;31m", "\033[0;32m", "\033[0;33m", "\033[0;34m", "\033[0;35m", "\033[0;36m");
-        
-        String mapStr = "";
-        for (int k = 0; k < mapMatrix.length; k++) {
-            for (int k1 = 0; k1 < mapMatrix[k].length; k1++) {
-                int idx = positions.indexOf(new Position(k,k1));
-                if (idx != -1)
-                {
-                    mapStr += ansiColors.get(idx) + mapMatrix[k][k1] + "\033[0m ";
-                }
-                else
-                {
-                    mapStr += mapMatrix[k][k1] + " ";
-                }
-            }
-            mapStr += "\n";
-        }
-        return mapStr;
+        MapRenderer renderer = new MapRenderer(this);
+        renderer.highlight(positions);
+        return renderer.toString();
     }
 
     /** 
-     Returns list of positions with items in the map
+     Returns list of positions with items in the map, in row-major order.
+     The list is a cached view shared between calls until the items change, so it must not be modified
      * @return LinkedList of Positions with items
      */
     public LinkedList<Position> getItemPositions()
     {
-        LinkedList<Position> positions = new LinkedList<Position>();
-        
-        for (int k = 0; k < mapMatrix.length; k++) {
-            for (int k1 = 0; k1 < mapMatrix[k].length; k1++) {
-                if (mapMatrix[k][k1] == 1)
-                {
-                    positions.add(new Position(k,k1));
-                }
-            }
-        }
+        if (itemPositionsView == null)
+            itemPositionsView = toPositions(itemCells);
 
-        return positions;
+        return itemPositionsView;
     }
     /**
-    Returns list of positions with traps in the map
+    Returns list of positions with traps in the map, in row-major order.
+    The list is a cached view shared between calls until the traps change, so it must not be modified
      * @return LinkedList of Positions with traps
      */
     public LinkedList<Position> getTrapsPositions()
     {
-        LinkedList<Position> positions = new LinkedList<Position>();
-        
-        for (int k = 0; k < mapMatrix.length; k++) {
-            for (int k1 = 0; k1 < mapMatrix[k].length; k1++) {
-                if (mapMatrix[k][k1] == 2)
-                {
-                    positions.add(new Position(k,k1));
-                }
-            }
-        }
+        if (trapPositionsView == null)
+            trapPositionsView = toPositions(trapCells);
 
-        return positions;
+        return trapPositionsView;
     }
 
-    public void clearPosition(Position pos)
+    private LinkedList<Position> toPositions(TreeSet<Integer> cells)
     {
-        mapMatrix[pos.x][pos.y] = 0;
+        LinkedList<Position> positions = new LinkedList<Position>();
+        for (int cell : cells)
+            positions.add(new Position(cell / numCols, cell % numCols)); // not interned: views are handed out
+
+        return positions;
     }
 
-    public void generateNewItem()
+    /* Sets the content of a cell keeping the item and trap indexes up to date */
+    void setCell(int row, int col, int value)
     {
+        int cell = row * numCols + col;
+        int previous = getCell(cell);
+        if (previous == value)
+            return;
+
+        if (previous == 1 || value == 1) {
+            if (!ownedItemCells) {
+                itemCells = new TreeSet<Integer>(itemCells);
+                ownedItemCells = true;
+            }
+            itemPositionsView = null;
+        }
+        if (previous == 2 || value == 2) {
+            if (!ownedTrapCells) {
+                trapCells = new TreeSet<Integer>(trapCells);
+                ownedTrapCells = true;
+            }
+            trapPositionsView = null;
+        }
 
-        boolean itemGenerated = false;
+        if (previous == 1)
+            itemCells.remove(cell);
+        else if (previous == 2)
+            trapCells.remove(cell);
 
-        int tempRow = rand.nextInt(numRows); // 0...numRows-1
-        int tempCol = rand.nextInt(numCols); // 0...numCols-1
-        if (mapMatrix[tempRow][tempCol] == 0)
+        if (freeCells != null)
         {
-            mapMatrix[tempRow][tempCol] = 1;
-            itemGenerated = true;
+            if (previous == 0)
+                removeFromFreePool(cell);
+            else if (value == 0)
+                addToFreePool(cell);
         }
-        else {
-            //System.out.println("Attempted position for item not empty, finding alternative...");
-            // Search for next available position
-            int newTempRow = tempRow;
-            int newTempCol = tempCol;
-            outerloop:
-            for (int k1 = 0; k1 < numRows; k1++) 
-            {
-                for (int k2 = 0; k2 < numCols; k2++)
-                {
-                    newTempRow = (tempRow + k1) % numRows;
-                    newTempCol = (tempCol + k2) % numCols;
-                    if (mapMatrix[newTempRow][newTempCol] == 0)
-                    {
-                        mapMatrix[newTempRow][newTempCol] = 1;
-                        itemGenerated = true;
-                        break outerloop;
-                    }
-                }
-            }
+
+        if (value == 1)
+            itemCells.add(cell);
+        else if (value == 2)
+            trapCells.add(cell);
+
+        int chunk = cell >>> CHUNK_BITS;
+        if (!ownedChunks[chunk])
+        {
+            // chunk still shared with other versions of the map, take a private copy before writing
+            chunks[chunk] = chunks[chunk].clone();
+            ownedChunks[chunk] = true;
         }
-           
+        chunks[chunk][cell & CHUNK_MASK] = (byte) value;
+
+        if (changeListener != null)
+            changeListener.cellChanged(this, cell, previous, value);
+    }
+
+    /* Sets the listener notified of every cell change of this map (null to remove it) */
+    public void setChangeListener(MapChangeListener listener)
+    {
+        changeListener = listener;
+    }
+
+    public MapChangeListener getChangeListener()
+    {
+        return changeListener;
+    }
+
+    int getCell(int cell)
+    {
+        return chunks[cell >>> CHUNK_BITS][cell & CHUNK_MASK];
+    }
+
+    /* Swap-removes a cell from the free-cell pool */
+    private void removeFromFreePool(int cell)
+    {
+        int slot = freeSlot[cell];
+        int lastCell = freeCells[--freeCount];
+        freeCells[slot] = lastCell;
+        freeSlot[lastCell] = slot;
+        freeSlot[cell] = -1;
+    }
+
+    private void addToFreePool(int cell)
+    {
+        freeCells[freeCount] = cell;
+        freeSlot[cell] = freeCount++;
+    }
+
+    public void clearPosition(Position pos)
+    {
+        setCell(pos.x, pos.y, 0);
+    }
+
+    public void generateNewItem()
+    {
         try {
-            if (!itemGenerated)
+            if (placeRandomly(1, 1, redistributionRand) != 1)
                 throw new Exception("Unable to find empty position to accomodate for all items while generating map");
         } catch (Exception e)
         {
-            e.printStackTrace();
+            Log.error(e.getMessage(), e);
         }
     }
 
     public Position searchRandomEmtpyPosition()
+    {
+        return searchRandomEmtpyPosition(rand);
+    }
+
+    /* Same, drawing from "random" instead of the map's own generator */
+    public Position searchRandomEmtpyPosition(Random random)
     {
         Position emptyPos = null;
-    
-        boolean positionFound = false;
 
-        int tempRow = rand.nextInt(numRows); // 0...numRows-1
-        int tempCol = rand.nextInt(numCols); // 0...numCols-1
-        if (mapMatrix[tempRow][tempCol] == 0)
-        {
-            emptyPos = new Position(tempRow, tempCol);
-            positionFound = true;
-        }
-        else {
-            //System.out.println("Position not empty, finding alternative...");
-            // Search for next available position
-            int newTempRow = tempRow;
-            int newTempCol = tempCol;
-            outerloop:
-            for (int k1 = 0; k1 < numRows; k1++) 
-            {
-                for (int k2 = 0; k2 < numCols; k2++)
-                {
-                    newTempRow = (tempRow + k1) % numRows;
-                    newTempCol = (tempCol + k2) % numCols;
-                    if (mapMatrix[newTempRow][newTempCol] == 0)
-                    {
-                        emptyPos = new Position(tempRow, tempCol);
-                        positionFound = true;
-                        break outerloop;
-                    }
-                }
-            }
-        }
-           
+        int cell = pickRandomFreeCell(random);
+        if (cell != -1)
+            emptyPos = positionOf(cell);
+
         try {
-            if (!positionFound)
+            if (emptyPos == null)
                 throw new Exception("Unable to find empty position");
         } catch (Exception e)
         {
-            e.printStackTrace();
+            Log.error(e.getMessage(), e);
         }
 
         return emptyPos;
@@ -304,103 +413,32 @@ public class Map implements Serializable, Cloneable {
 
     public void redistributeTraps()
     {
-        // create instance of Random class
-
-        LinkedList<Position> trapPositions = getTrapsPositions();
-        for(Position trapPos : trapPositions)
-            clearPosition(trapPos);
+        for (int cell : new ArrayList<Integer>(trapCells))
+            setCell(cell / numCols, cell % numCols, 0);
 
         // Generate traps
-        int generatedItems = 0;
-        for (int k = 0; k < numTraps; k++)
-        {
-            int tempRow = rand.nextInt(numRows); // 0...numRows-1
-            int tempCol = rand.nextInt(numCols); // 0...numCols-1
-            if (mapMatrix[tempRow][tempCol] == 0)
-            {
-                mapMatrix[tempRow][tempCol] = 2;
-                generatedItems++;
-                continue;
-            }
-            else {
-                //System.out.println("Attempted position for trap not empty, finding alternative...");
-                // Search for next available position
-                int newTempRow = tempRow;
-                int newTempCol = tempCol;
-                outerloop:
-                for (int k1 = 0; k1 < numRows; k1++) 
-                {
-                    for (int k2 = 0; k2 < numCols; k2++)
-                    {
-                        newTempRow = (tempRow + k1) % numRows;
-                        newTempCol = (tempCol + k2) % numCols;
-                        if (mapMatrix[newTempRow][newTempCol] == 0)
-                        {
-                            mapMatrix[newTempRow][newTempCol] = 2;
-                            generatedItems++;
-                            break outerloop;
-                        }
-                    }
-                }
-            }
-        }
         try {
-            if (generatedItems != numTraps)
+            if (placeRandomly(2, numTraps, redistributionRand) != numTraps)
             throw new Exception("Unable to find empty position to accomodate for all traps while rescheduling");
         } catch (Exception e)
         {
-            e.printStackTrace();
+            Log.error(e.getMessage(), e);
         }
         
     }
 
     public void redistributeItems()
     {
+        for (int cell : new ArrayList<Integer>(itemCells))
+            setCell(cell / numCols, cell % numCols, 0);
 
-        LinkedList<Position> itemPositions = getItemPositions();
-        for(Position itemPos : itemPositions)
-            clearPosition(itemPos);
-
-        // Generate traps
-        int generatedItems = 0;
-        for (int k = 0; k < numItems; k++)
-        {
-            int tempRow = rand.nextInt(numRows); // 0...numRows-1
-            int tempCol = rand.nextInt(numCols); // 0...numCols-1
-            if (mapMatrix[tempRow][tempCol] == 0)
-            {
-                mapMatrix[tempRow][tempCol] = 1;
-                generatedItems++;
-                continue;
-            }
-            else {
-                // System.out.println("Attempted position for item not empty, finding alternative...");
-                // Search for next available position
-                int newTempRow = tempRow;
-                int newTempCol = tempCol;
-                outerloop:
-                for (int k1 = 0; k1 < numRows; k1++) 
-                {
-                    for (int k2 = 0; k2 < numCols; k2++)
-                    {
-                        newTempRow = (tempRow + k1) % numRows;
-                        newTempCol = (tempCol + k2) % numCols;
-                        if (mapMatrix[newTempRow][newTempCol] == 0)
-                        {
-                            mapMatrix[newTempRow][newTempCol] = 1;
-                            generatedItems++;
-                            break outerloop;
-                        }
-                    }
-                }
-            }
-        }
+        // Generate items
         try {
-            if (generatedItems != numItems)
+            if (placeRandomly(1, numItems, redistributionRand) != numItems)
             throw new Exception("Unable to find empty position to accomodate for all items while rescheduling");
         } catch (Exception e)
         {
-            e.printStackTrace();
+            Log.error(e.getMessage(), e);
         }
         
     }
@@ -413,32 +451,70 @@ public class Map implements Serializable, Cloneable {
 
     public boolean withinMapLimits(Position pos)
     {
-        return (pos.x >= 0 && pos.x < mapMatrix.length) &&
-            (pos.y >= 0 && pos.y < mapMatrix.length); 
+        return withinMapLimits(pos.x, pos.y);
     }
 
-    public boolean isItemPosition(Position pos)
+    public boolean withinMapLimits(int row, int col)
     {
-        LinkedList<Position> itemPositions = getItemPositions();
+        return (row >= 0 && row < numRows) &&
+            (col >= 0 && col < numCols);
+    }
 
-        return itemPositions.contains(pos);
+    public boolean isItemPosition(Position pos)
+    {
+        return insideGrid(pos) && getCell(cellId(pos)) == 1;
     }
 
     public boolean isTrapPosition(Position pos)
     {
-        LinkedList<Position> trapsPositions = getTrapsPositions();
+        return insideGrid(pos) && getCell(cellId(pos)) == 2;
+    }
+
+    /* Same as isItemPosition for a cell id (row * numCols + col) inside the map */
+    public boolean isItemCell(int cell)
+    {
+        return getCell(cell) == 1;
+    }
+
+    /* Same as isTrapPosition for a cell id (row * numCols + col) inside the map */
+    public boolean isTrapCell(int cell)
+    {
+        return getCell(cell) == 2;
+    }
 
-        return trapsPositions.contains(pos);
+    /* True when both maps have the same dimensions, items and traps */
+    public boolean sameContents(Map other)
+    {
+        return numRows == other.numRows && numCols == other.numCols
+            && itemCells.equals(other.itemCells) && trapCells.equals(other.trapCells);
+    }
+
+    private boolean insideGrid(Position pos)
+    {
+        return pos.x >= 0 && pos.x < numRows && pos.y >= 0 && pos.y < numCols;
     }
 
     @Override
 	public Object clone() throws CloneNotSupportedException {
-	    Map mapCopy = (Map) super.clone();
+        if (positionCache == null)
+            positionCache = new Position[chunks.length][];
+	    Map mapCopy = (Map) super.clone(); // positionCache is shared
         
-        mapCopy.mapMatrix = new int[numRows][numCols];
-        for (int k = 0; k < numRows; k++)
-            for (int k1 = 0; k1 < numCols; k1++)
-                mapCopy.mapMatrix[k][k1] = mapMatrix[k][k1];
+        // Structural sharing: the copy points to the same chunks, and from now on
+        // neither version may write a chunk in place until it has copied it
+        mapCopy.chunks = chunks.clone();
+        Arrays.fill(ownedChunks, false);
+        mapCopy.ownedChunks = new boolean[ownedChunks.length];
+
+        // Same for the indexes, and the views built from them stay valid for both
+        ownedItemCells = false;
+        ownedTrapCells = false;
+        mapCopy.ownedItemCells = false;
+        mapCopy.ownedTrapCells = false;
+
+        mapCopy.freeCells = null;
+        mapCopy.freeSlot = null;
+        mapCopy.changeListener = null;
 
         return mapCopy;
 	}
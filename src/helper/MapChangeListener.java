@@ -0,0 +1,9 @@
+package helper;
+
+/* Gets notified of every cell of a Map that changes content (see Map.setChangeListener),
+   so that structures derived from the map can be updated locally instead of rebuilt */
+public interface MapChangeListener {
+
+    /* "previous" and "value" are cell contents: 0 empty, 1 item, 2 trap */
+    void cellChanged(Map map, int cell, int previous, int value);
+}
@@ -19,9 +19,22 @@ public class MapNavigator {
         initializeOperatorsList();
     }
 
+    private int[] neighbors = new int[4];
+
     public LinkedList<Position> getNextPossiblePositions(Map map, Position currentPos)
     {
         LinkedList<Position> possiblePos = new LinkedList<Position>();
+
+        // Inside the map the moves are known cells, no need to apply each operator on a copy of
+        // the current position. The positions are the caller's, so not the map's interned ones
+        if (map.withinMapLimits(currentPos))
+        {
+            int numNeighbors = getNextPossibleCells(map, map.cellId(currentPos), neighbors);
+            for (int k = 0; k < numNeighbors; k++)
+                possiblePos.add(new Position(map.cellRow(neighbors[k]), map.cellCol(neighbors[k])));
+
+            return possiblePos;
+        }
         
         MapNavigationState currentMapNavigationState = new MapNavigationState(currentPos);
                 
@@ -37,6 +50,29 @@ public class MapNavigator {
         return possiblePos;
     }
 
+    /* Allocation-free version of getNextPossiblePositions for search code working on cell ids
+       (row * numCols + col): writes into "neighbors" the cells reachable from "cell" in one move,
+       in the same order as the operators (up, down, left, right), and returns how many were written.
+       "neighbors" must have room for at least 4 cells */
+    public int getNextPossibleCells(Map map, int cell, int[] neighbors)
+    {
+        int numCols = map.getNumCols();
+        int row = cell / numCols;
+        int col = cell % numCols;
+        int count = 0;
+
+        if (map.withinMapLimits(row - 1, col))
+            neighbors[count++] = cell - numCols;
+        if (map.withinMapLimits(row + 1, col))
+            neighbors[count++] = cell + numCols;
+        if (map.withinMapLimits(row, col - 1))
+            neighbors[count++] = cell - 1;
+        if (map.withinMapLimits(row, col + 1))
+            neighbors[count++] = cell + 1;
+
+        return count;
+    }
+
     public LinkedList<Position> getItemPositions(Map map)
     {
         return map.getItemPositions();
@@ -0,0 +1,121 @@
+package helper;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+
+/* Text rendering of a Map, one line per row with the cell values separated by spaces, as
+   Map.toString shows it.
+
+   Highlighted positions are wrapped in ANSI color sequences (for terminals supporting them).
+   Each highlighted position gets the next color of the palette: the 6 basic colors first,
+   then the same colors in bold, underlined and reversed, so 24 positions can be told apart
+   before colors are reused. Colors are looked up by cell, so rendering is linear in the
+   number of cells shown, and it is written straight to an Appendable (a Writer, System.out,
+   a StringBuilder...) instead of building the whole text first.
+
+   A viewport limits the rendering to a rectangle of the map, to look at part of a map too
+   large to show (see Map.describe) */
+public class MapRenderer {
+
+    private static final String RESET = "\033[0m";
+    private static final int[] COLORS = { 31, 32, 33, 34, 35, 36 };
+    private static final int[] STYLES = { 0, 1, 4, 7 }; // normal, bold, underlined, reversed
+
+    private final Map map;
+    private final HashMap<Integer, String> highlights = new HashMap<Integer, String>();
+    private int numHighlights = 0;
+
+    // Viewport, the whole map unless set
+    private int firstRow = 0;
+    private int firstCol = 0;
+    private int lastRow;
+    private int lastCol;
+
+    public MapRenderer(Map map)
+    {
+        this.map = map;
+        lastRow = map.getNumRows();
+        lastCol = map.getNumCols();
+    }
+
+    /* Highlights "pos" with the next color of the palette. A position already highlighted keeps
+       its first color, positions outside the map are ignored (both still use up a color, so
+       the n-th position of a list always gets the n-th color) */
+    public void highlight(Position pos)
+    {
+        String color = paletteColor(numHighlights++);
+        if (pos != null && map.withinMapLimits(pos))
+            highlights.putIfAbsent(map.cellId(pos), color);
+    }
+
+    public void highlight(Collection<Position> positions)
+    {
+        for (Position pos : positions)
+            highlight(pos);
+    }
+
+    /* Only renders "numRows" rows and "numCols" columns from (row, col), clipped to the map */
+    public void setViewport(int row, int col, int numRows, int numCols)
+    {
+        firstRow = Math.max(0, row);
+        firstCol = Math.max(0, col);
+        lastRow = (int) Math.min(map.getNumRows(), Math.max(firstRow, (long) row + numRows));
+        lastCol = (int) Math.min(map.getNumCols(), Math.max(firstCol, (long) col + numCols));
+    }
+
+    /* ANSI sequence of the "index"-th color of the palette, cycling once it is exhausted */
+    public static String paletteColor(int index)
+    {
+        int color = COLORS[index % COLORS.length];
+        int style = STYLES[(index / COLORS.length) % STYLES.length];
+        return "\033[" + style + ";" + color + "m";
+    }
+
+    public void render(Appendable out) throws IOException
+    {
+        boolean highlighted = !highlights.isEmpty();
+        for (int row = firstRow; row < lastRow; row++)
+        {
+            int cell = map.cellId(row, firstCol);
+            for (int col = firstCol; col < lastCol; col++, cell++)
+            {
+                String color = highlighted ? highlights.get(cell) : null;
+                if (color != null)
+                {
+                    out.append(color);
+                    appendValue(out, map.getCell(cell));
+                    out.append(RESET);
+                }
+                else
+                {
+                    appendValue(out, map.getCell(cell));
+                }
+                out.append(' ');
+            }
+            out.append('\n');
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        // cell values are single digits, so two characters per cell and one per row
+        long length = (long) (lastRow - firstRow) * (2 * (lastCol - firstCol) + 1);
+        StringBuilder text = new StringBuilder((int) Math.min(length, 1 << 24));
+        try {
+            render(text);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+        }
+        return text.toString();
+    }
+
+    private static void appendValue(Appendable out, int value) throws IOException
+    {
+        if (value >= 0 && value <= 9)
+            out.append((char) ('0' + value));
+        else
+            out.append(Integer.toString(value));
+    }
+}
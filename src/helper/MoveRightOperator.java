@@ -8,11 +8,10 @@ public class MoveRightOperator extends GenericOperator {
 
         Position newPos = null;
         try {
-            newPos = (Position) mapNavState.position.clone();
-            newPos.y++;
+            newPos = new Position(mapNavState.position.x, mapNavState.position.y + 1);
         } catch (Exception e)
         {
-            e.printStackTrace();
+            Log.error("Unable to apply " + this, e);
         }
             
         return new MapNavigationState(newPos);
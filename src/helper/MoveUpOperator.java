@@ -8,11 +8,10 @@ public class MoveUpOperator extends GenericOperator {
 
         Position newPos = null;
         try {
-            newPos = (Position) mapNavState.position.clone();
-            newPos.x--;
+            newPos = new Position(mapNavState.position.x - 1, mapNavState.position.y);
         } catch (Exception e)
         {
-            e.printStackTrace();
+            Log.error("Unable to apply " + this, e);
         }
             
         return new MapNavigationState(newPos);
@@ -28,6 +28,16 @@ public class Participant {
         return numItems - numTraps;
     }
 
+    public int getNumItems()
+    {
+        return numItems;
+    }
+
+    public int getNumTraps()
+    {
+        return numTraps;
+    }
+
     public int getCommitment()
     {
         return commitment;
@@ -1,6 +1,5 @@
 package helper;
 import java.io.Serializable;
-import java.util.Objects;
 
 public class Position implements Serializable, Cloneable {
 
@@ -34,6 +33,25 @@ public class Position implements Serializable, Cloneable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * x + y;
+    }
+
+    /* Packs a pair of coordinates into a single long (x in the high half, y in the low one),
+       usable as a map-independent key for any coordinates, including out of the map ones.
+       Inside a given map, Map.cellId gives the denser row-major int id */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) packed;
+    }
+
+    public long pack() {
+        return pack(x, y);
     }
 }
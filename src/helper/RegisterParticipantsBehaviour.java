@@ -26,17 +26,22 @@ public class RegisterParticipantsBehaviour extends CyclicBehaviour {
                 } else {
                     reply.setPerformative(ACLMessage.AGREE);
                     SimulationState initialState = ((SimulatorAgent)myAgent).addParticipant(requester, agentCommitment);
-                    reply.setContentObject(initialState);
+                    StateCodec.writeContent(reply, initialState, ((SimulatorAgent)myAgent).useBinaryCodec());
+                    // participants draw their random numbers from their own stream of the simulation's seed
+                    reply.addUserDefinedParameter(SimulatorAgent.SEED_PARAMETER, Long.toString(((SimulatorAgent)myAgent).getSeed()));
                 }
                 
-                myAgent.send(reply);       
+                myAgent.send(reply);
+
+                if (reply.getPerformative() == ACLMessage.AGREE)
+                    ((SimulatorAgent)myAgent).participantJoined();
             }
             else {
                 block(); // until new message arrives
             }
         } catch (Exception e)
         {
-            e.printStackTrace();
+            Log.error("Unable to register participant", e);
         }
 
     }    
@@ -0,0 +1,126 @@
+package helper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+import config.SimulationConfig;
+
+/* Machine-readable output of a simulation, as JSON lines, for scripts to read instead of the
+   console. Both files are optional (see the results and roundlog simulator options):
+   - results: when the simulation ends, one "participant" record per participant with its
+     items, traps, score, commitment and proposal latencies, then one "simulation" record with
+     the seed, the rounds played and how long they took
+   - rounds: after every round, one record with its duration and each participant's position
+     and score
+   Times are in microseconds */
+public class ResultsWriter implements Closeable {
+
+    private final long seed;
+    private Writer results;
+    private Writer rounds;
+
+    public ResultsWriter(SimulationConfig config) throws IOException
+    {
+        seed = config.seed;
+        if (config.resultsFile != null)
+            results = new BufferedWriter(new FileWriter(config.resultsFile));
+        if (config.roundsFile != null)
+            rounds = new BufferedWriter(new FileWriter(config.roundsFile));
+    }
+
+    /* Called after engine.endRound(), with the time the round took */
+    public void roundEnded(SimulationEngine engine, long roundNanos) throws IOException
+    {
+        if (rounds == null)
+            return;
+
+        StringBuilder line = new StringBuilder();
+        line.append("{\"round\":").append(engine.getRoundCount())
+            .append(",\"duration_us\":").append(micros(roundNanos))
+            .append(",\"participants\":[");
+        boolean first = true;
+        for (Participant participant : engine.getParticipants())
+        {
+            Position position = participant.getSimulationState().getPosition();
+            line.append(first ? "" : ",")
+                .append("{\"name\":").append(quote(participant.getAID().getLocalName()))
+                .append(",\"x\":").append(position.x)
+                .append(",\"y\":").append(position.y)
+                .append(",\"score\":").append(participant.getScore()).append('}');
+            first = false;
+        }
+        line.append("]}\n");
+        rounds.write(line.toString());
+    }
+
+    /* Writes the final results and closes both files */
+    public void simulationEnded(SimulationEngine engine, long elapsedNanos) throws IOException
+    {
+        if (results != null)
+        {
+            SimulationMetrics metrics = engine.getMetrics();
+            for (Participant participant : engine.getParticipants())
+            {
+                Histogram proposals = metrics.proposal(participant);
+                results.write("{\"record\":\"participant\""
+                    + ",\"name\":" + quote(participant.getAID().getLocalName())
+                    + ",\"items\":" + participant.getNumItems()
+                    + ",\"traps\":" + participant.getNumTraps()
+                    + ",\"score\":" + participant.getScore()
+                    + ",\"commitment\":" + participant.getCommitment()
+                    + ",\"proposal_mean_us\":" + micros(proposals.getMean())
+                    + ",\"proposal_p50_us\":" + micros(proposals.getPercentile(50))
+                    + ",\"proposal_p99_us\":" + micros(proposals.getPercentile(99))
+                    + ",\"proposal_max_us\":" + micros(proposals.getMax())
+                    + "}\n");
+            }
+
+            Histogram round = metrics.round();
+            results.write("{\"record\":\"simulation\""
+                + ",\"seed\":" + seed
+                + ",\"rounds\":" + engine.getRoundCount()
+                + ",\"participants\":" + engine.getParticipants().size()
+                + ",\"elapsed_us\":" + micros(elapsedNanos)
+                + ",\"round_mean_us\":" + micros(round.getMean())
+                + ",\"round_p99_us\":" + micros(round.getPercentile(99))
+                + "}\n");
+        }
+        close();
+    }
+
+    /* Closes both files, without the final records if the simulation has not ended */
+    @Override
+    public void close() throws IOException
+    {
+        if (results != null)
+            results.close();
+        if (rounds != null)
+            rounds.close();
+        results = null;
+        rounds = null;
+    }
+
+    private static String micros(double nanos)
+    {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000);
+    }
+
+    private static String quote(String text)
+    {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray())
+        {
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
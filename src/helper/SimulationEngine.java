@@ -0,0 +1,313 @@
+package helper;
+import jade.core.AID;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import config.SimulationConfig;
+
+/* Rules of the simulation as plain Java: the map, the participants and how their actions are
+   resolved round after round. It knows nothing about messaging, so it is driven both by the
+   JADE SimulatorAgent/SimulationManagerBehaviour and by the in-process HeadlessSimulation */
+public class SimulationEngine {
+
+    private LinkedList<Participant> participants = new LinkedList<Participant>();
+    private Map _map;
+    private SimulationRandom random;
+    private SimulationMetrics metrics = new SimulationMetrics();
+    // Number of participants standing on each cell (by cell id), kept up to date as they move,
+    // so that checking whether a cell is taken does not need to go through every participant
+    private HashMap<Integer, Integer> occupancy = new HashMap<Integer, Integer>();
+
+    private int numSimRounds;
+    private int numStepsMapReDist;
+
+    // Simulation state
+    private int roundCount = 0;
+
+    public SimulationEngine(SimulationConfig config) throws Exception
+    {
+        numSimRounds = config.numSimRounds;
+        numStepsMapReDist = config.numStepsMapReDist;
+
+        // Initialize map according to parameters
+        random = new SimulationRandom(config.seed);
+        _map = new Map(config.numRows, config.numCols, config.numItems, config.numTraps, random);
+    }
+
+    /* Latencies of this simulation: the engine records its own, the drivers add theirs */
+    public SimulationMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /* Random streams of this simulation, participants take theirs from here */
+    public SimulationRandom getRandom()
+    {
+        return random;
+    }
+
+    public Map getCurrentMap()
+    {
+        return _map;
+    }
+
+    public int getRoundCount()
+    {
+        return roundCount;
+    }
+
+    public LinkedList<Participant> getParticipants()
+    {
+        return participants;
+    }
+
+    public boolean simulationComplete()
+    {
+        return roundCount == numSimRounds;
+    }
+
+    /* Closes the current round: increases the round counter and redistributes the map when due */
+    public void endRound()
+    {
+        roundCount++;
+
+        // Check wheter map needs to be updated
+        // Notice that next request for decision is based on the preceding state
+        // Thus effectively meaning possible wrong decision, 
+        // regardless of client agent's correspsonding commitment configurations
+        checkMapMustChange();
+    }
+
+    private void checkMapMustChange()
+    {
+        if (roundCount % numStepsMapReDist == 0)
+        {
+            long start = System.nanoTime();
+            _map.redistributeMap();
+            metrics.redistribution().record(System.nanoTime() - start);
+            Log.debug("MAP RESCHEDULING!!");
+        }
+    }
+
+    /* Fixes the turn order before the first round: by local name, so that it does not depend on
+       the order participants happened to join in */
+    public void orderParticipants()
+    {
+        participants.sort(Comparator.comparing(participant -> participant.getAID().getLocalName()));
+    }
+
+    // Used when accepting a participant to join the simulation (waiting to start)
+    // It returns its initial SimulationState to be communicated to the accepted participant
+    public SimulationState addParticipant(AID agentAID, int agentCommitment)
+    {
+        SimulationState initialState = null;
+        try {
+            Position initialPosition = _map.searchRandomEmtpyPosition(random.initialPosition(agentAID.getLocalName()));
+            initialState = new SimulationState((Map)_map.clone(), initialPosition);
+        } catch (Exception e)
+        {
+            Log.error("Unable to create the initial state of " + agentAID.getLocalName(), e);
+        }
+        participants.add(new Participant(agentAID, initialState, agentCommitment));
+        if (initialState != null)
+            occupy(initialState.getPosition());
+        
+        return initialState;
+    }
+
+    public void showOverallState()
+    {
+        showOverallState(Log.Level.INFO);
+    }
+
+    /* Logs every participant's status at the given level, building nothing when it is disabled */
+    public void showOverallState(Log.Level level)
+    {
+        if (!Log.isEnabled(level))
+            return;
+
+        // Retrieve participant's positions
+        LinkedList<Position> posToHighlight = new LinkedList<>();
+        for(Participant participant : participants)
+        {
+            posToHighlight.add(participant.getSimulationState().getPosition());
+        }
+        
+        // SimulatorAgent's simulation state
+        // System.out.println("\nSimulator's agent status:");
+        // System.out.print(_map.toString(posToHighlight));
+        //_map.show(); // map with no highlighted participant's position
+        
+        // Show each participant's simulation state
+        StringBuilder status = new StringBuilder("\nParticipant's status:\n");
+        for(Participant participant : participants)
+        {
+            status.append(participant.toString());
+        } 
+        Log.log(level, "%s", status.toString().stripTrailing());
+        
+        // debug: wait pressing enter to continue
+        /*try {
+            System.in.read();
+        } catch (Exception e)
+        {
+            e.printStackTrace();
+        }*/
+    }
+
+    public LinkedList<Position> getParticipantsPositions()
+    {
+        LinkedList<Position> participantsPos = new LinkedList<Position>();
+
+        for(Participant participant : participants)
+        {
+            participantsPos.add(participant.getSimulationState().getPosition());
+        }
+
+        return participantsPos;
+    }
+
+    private boolean occupiedByAgentPosition(Position pos, Participant excludeParticipant)
+    {
+        Integer count = occupancy.get(_map.cellId(pos));
+        if (count == null)
+            return false;
+
+        // the participant itself does not count
+        if (pos.equals(excludeParticipant.getSimulationState().getPosition()))
+            return count > 1;
+        return true;
+    }
+
+    private void occupy(Position pos)
+    {
+        if (pos != null)
+            occupancy.merge(_map.cellId(pos), 1, Integer::sum);
+    }
+
+    private void vacate(Position pos)
+    {
+        if (pos != null)
+            occupancy.computeIfPresent(_map.cellId(pos), (cell, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /* Applies the requested movement and returns the update to send back to the participant:
+       a full SimulationState when its commitment counter runs out, otherwise only a
+       SimulationStateDelta with its new position and the cells cleared in its stale map */
+    public Serializable processAction(Position newPosition, Participant participant)
+    {
+        long start = System.nanoTime();
+        Serializable update = resolveAction(newPosition, participant);
+        metrics.processAction().record(System.nanoTime() - start);
+        return update;
+    }
+
+    private Serializable resolveAction(Position newPosition, Participant participant)
+    {
+        // Process action and act accordingly
+        SimulationState newState = participant.getSimulationState(); // by default "old" state
+        LinkedList<Position> clearedPositions = new LinkedList<Position>();
+        
+        // Get updated version of the map
+        Map currentMap = _map;
+
+        boolean validRequest = isValidMovement(newPosition, false) && 
+            !occupiedByAgentPosition(newPosition, participant);
+
+        int remainingCommitmentSteps = participant.decreaseCommitmentSteps(1);
+        
+        // Update state and corresponding commitment/scoring fields
+        if (validRequest)
+        {            
+            // Check whether next movement involves reaching an item
+            if (currentMap.isItemPosition(newPosition))
+            {
+                // Score point
+                participant.increaseItemCounter(1);
+
+                // Participant is always informed about having scored the item,
+                // (to avoid risk of getting trapped in local minima)
+                // but full updated map (i.e. currentMap) will only be shared
+                // according to its "commitment counter"
+                participant.getSimulationState().getMap().clearPosition(newPosition);
+                clearedPositions.add(newPosition);
+
+                // Update simulator's map (remove item, generate new)
+                currentMap.clearPosition(newPosition);
+                currentMap.generateNewItem();
+
+            } else {
+
+                // valid movement other than to item position
+                if (currentMap.isTrapPosition(newPosition))
+                {
+                    participant.increaseTrapCounter(1);
+
+                    // It remains trapped
+                    newPosition = participant.getSimulationState().getPosition();
+                }
+
+                // otherwise "newPosition" involves valid movement toward empty position
+
+                // regardless, an agent with unupdated map (e.g. because high commitment)
+                // might still "believe" there is some item there
+                // hence we try to communicate that, again to avoid risk of getting
+                // trapped in local minima
+                if (participant.getSimulationState().getMap().isItemPosition(newPosition))
+                {
+                    participant.getSimulationState().getMap().clearPosition(newPosition);
+                    clearedPositions.add(newPosition);
+                }
+            }
+        }
+        else 
+        {
+            // invalid position, it remains where it is
+            newPosition = participant.getSimulationState().getPosition();
+        }
+        // check if fully updated version of the map needs to be provided
+        boolean fullUpdate = remainingCommitmentSteps == 0;
+        if (fullUpdate)
+        {
+            try {
+                // Map clones are copy-on-write, so this snapshot shares every chunk of the grid
+                // with the simulator's map until either of them changes it
+                newState = new SimulationState((Map) currentMap.clone(), newPosition);
+            } catch (Exception e)
+            {
+                Log.error("Unable to snapshot the map for " + participant.getAID().getLocalName(), e);
+            }
+
+            // Restart commitment counter
+            participant.resetCommitmentSteps();
+        }
+        else {
+            // New position but with "unupdated" map
+            newState = new SimulationState(participant.getSimulationState().getMap(), newPosition);
+        }
+        
+        // Store new participant's state
+        vacate(participant.getSimulationState().getPosition());
+        participant.updateState(newState);
+        occupy(newPosition);
+        
+        if (fullUpdate)
+            return newState;
+
+        return new SimulationStateDelta(newPosition, clearedPositions);
+    }
+
+    private boolean isValidMovement(Position pos, boolean avoidTraps)
+    {
+        boolean valid = true;
+
+        valid &= _map.withinMapLimits(pos);
+        if (avoidTraps)
+            valid &= !_map.isTrapPosition(pos);
+            
+        return valid;
+    }
+}
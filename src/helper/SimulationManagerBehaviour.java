@@ -1,4 +1,6 @@
 package helper;
+import java.io.Serializable;
+import java.util.HashMap;
 import java.util.LinkedList;
 
 import jade.core.behaviours.Behaviour;
@@ -9,191 +11,186 @@ public class SimulationManagerBehaviour extends Behaviour {
     
     public void action() {
 
-        LinkedList<Participant> participants = ((SimulatorAgent)myAgent).getParticipants();
+        SimulationEngine engine = ((SimulatorAgent)myAgent).getEngine();
+        LinkedList<Participant> participants = engine.getParticipants();
         
         while (!((SimulatorAgent)myAgent).simulationComplete())
         {
-            System.out.printf("\n%s: starting simulation round %d\n", myAgent.getAID().getLocalName(), ((SimulatorAgent)myAgent).roundCount);
+            long roundStart = System.nanoTime();
+            if (Log.isDebugEnabled())
+                Log.debug("\n%s: starting simulation round %d", myAgent.getAID().getLocalName(), engine.getRoundCount());
 
-            // Loop through all participants and ask for their next action
-            for(Participant participant : participants)
-            {
-                // Ask movement
-                ACLMessage reqp = new ACLMessage(ACLMessage.REQUEST);
-                
-                reqp.setSender(myAgent.getAID());
-                reqp.setConversationId("request-action");
-                reqp.setReplyWith("request"+System.currentTimeMillis());
-                reqp.addReceiver(participant.getAID());
-                
-                System.out.println("\n"+myAgent.getAID().getLocalName()+": Sending request to "+ participant.getAID().getLocalName());
-                myAgent.send(reqp);
-
-                MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchConversationId("request-action"),
-                    MessageTemplate.MatchInReplyTo(reqp.getReplyWith()));
-                mt = MessageTemplate.and(mt, MessageTemplate.MatchPerformative(ACLMessage.PROPOSE));
-                /* agent totally stops until receiving this type of message or no response in 10s, 
-                   then assuming opportunity for response passed */
-                ACLMessage msg = myAgent.blockingReceive(mt, 10000); 
-                if (msg != null)
-                {
-                    // Process action
-                    try {
-                        Position requestedPosition = (Position)msg.getContentObject();
-                    
-                        // Check if valid, process action, and calculate new participant state
-                        SimulationState newSimulationState = processAction(requestedPosition, participant);
-
-                        // Return state
-                        ACLMessage reply = msg.createReply();
-                        reply.setPerformative(ACLMessage.INFORM);
-                        reply.setConversationId("update-state");
-                        
-                        // setContent() and setContentObject both write to the same field of the ACLMessage
-                        // hence no possible to set both of them separatedly
-                        reply.setContentObject(newSimulationState);
-                        myAgent.send(reply);
-                    } catch (Exception e)
-                    {
-                        e.printStackTrace();
-                    }        
-                }
-            } // end processing actions for this round
+            if (((SimulatorAgent)myAgent).useConcurrentProposals())
+                collectProposalsConcurrently(participants);
+            else
+                collectProposalsSequentially(participants);
 
             // Show simulation state
-            ((SimulatorAgent)myAgent).showOverallState();
+            engine.showOverallState(Log.Level.DEBUG);
 
-            // Increase round counter
-            ((SimulatorAgent)myAgent).roundCount++;
+            // Increase round counter and update the map if needed
+            engine.endRound();
+            long roundTime = System.nanoTime() - roundStart;
+            engine.getMetrics().round().record(roundTime);
+            ((SimulatorAgent)myAgent).roundEnded(roundTime);
 
-            // Check wheter map needs to be updated
-            // Notice that next request for decision is based on the preceding state
-            // Thus effectively meaning possible wrong decision, 
-            // regardless of client agent's correspsonding commitment configurations
-            ((SimulatorAgent)myAgent).checkMapMustChange();
+            answerMetricsQueries();
         }
     }
 
-    public boolean done() {
-        return ((SimulatorAgent)myAgent).simulationComplete();
+    /* This behaviour keeps the agent busy until the simulation ends, so requests for the
+       latencies collected so far are answered here, between rounds */
+    private void answerMetricsQueries()
+    {
+        MessageTemplate mt = MessageTemplate.and(
+            MessageTemplate.MatchConversationId(SimulatorAgent.METRICS_CONVERSATION),
+            MessageTemplate.MatchPerformative(ACLMessage.QUERY_REF));
+
+        for (ACLMessage query = myAgent.receive(mt); query != null; query = myAgent.receive(mt))
+            ((SimulatorAgent)myAgent).answerMetricsQuery(query);
     }
 
-    private LinkedList<Position> getParticipantsPositions()
+    /* Asks each participant for its next action in turn, waiting up to 10s for each answer
+       before moving to the next one, so a round lasts the sum of the participants' think times */
+    private void collectProposalsSequentially(LinkedList<Participant> participants)
     {
-        LinkedList<Participant> participants = ((SimulatorAgent)myAgent).getParticipants();
-        LinkedList<Position> participantsPos = new LinkedList<Position>();
-
+        // Loop through all participants and ask for their next action
         for(Participant participant : participants)
         {
-            participantsPos.add(participant.getSimulationState().getPosition());
-        }
-
-        return participantsPos;
+            // Ask movement
+            ACLMessage reqp = createActionRequest(participant, "request"+System.currentTimeMillis());
+            
+            if (Log.isDebugEnabled())
+                Log.debug("\n%s: Sending request to %s", myAgent.getAID().getLocalName(), participant.getAID().getLocalName());
+            long sent = System.nanoTime();
+            myAgent.send(reqp);
+
+            MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchConversationId("request-action"),
+                MessageTemplate.MatchInReplyTo(reqp.getReplyWith()));
+            mt = MessageTemplate.and(mt, MessageTemplate.MatchPerformative(ACLMessage.PROPOSE));
+            /* agent totally stops until receiving this type of message or no response in 10s, 
+               then assuming opportunity for response passed */
+            ACLMessage msg = myAgent.blockingReceive(mt, 10000); 
+            if (msg != null)
+            {
+                engine().getMetrics().proposal(participant).record(System.nanoTime() - sent);
+                handleProposal(msg, participant);
+            }
+        } // end processing actions for this round
     }
 
-    private boolean occupiedByAgentPosition(Position pos, Participant excludeParticipant)
+    /* Asks all participants for their next action at once and gathers the proposals under
+       a single 10s round deadline, so a round lasts as long as the slowest participant.
+       Proposals are then resolved in participants' order, exactly as in sequential mode */
+    private void collectProposalsConcurrently(LinkedList<Participant> participants)
     {
-        // Check 
-        LinkedList<Participant> participants = ((SimulatorAgent)myAgent).getParticipants();
-        for (Participant participant : participants) {
-            if (!participant.equals(excludeParticipant) && participant.getSimulationState().getPosition().equals(pos)) {
-                return true;
-            }
+        int roundCount = ((SimulatorAgent)myAgent).getEngine().getRoundCount();
+        HashMap<String, Participant> pending = new HashMap<String, Participant>();
+
+        int idx = 0;
+        for(Participant participant : participants)
+        {
+            ACLMessage reqp = createActionRequest(participant, "request" + roundCount + "-" + idx++);
+            pending.put(reqp.getReplyWith(), participant);
+            myAgent.send(reqp);
         }
-        return false;
-    }
+        long sent = System.nanoTime();
+        if (Log.isDebugEnabled())
+            Log.debug("\n%s: Sent requests to %d participants", myAgent.getAID().getLocalName(), participants.size());
 
-    private SimulationState processAction(Position newPosition, Participant participant)
-    {
-        // Process action and act accordingly
-        SimulationState newState = participant.getSimulationState(); // by default "old" state
-        
-        // Get updated version of the map from the Simulator agent
-        Map currentMap = ((SimulatorAgent)myAgent).getCurrentMap();
+        MessageTemplate mt = MessageTemplate.and(
+            MessageTemplate.MatchConversationId("request-action"),
+            MessageTemplate.MatchPerformative(ACLMessage.PROPOSE));
 
-        boolean validRequest = isValidMovement(newPosition, false) && 
-            !occupiedByAgentPosition(newPosition, participant);
+        HashMap<Participant, ACLMessage> proposals = new HashMap<Participant, ACLMessage>();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!pending.isEmpty())
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+                break;
 
-        int remainingCommitmentSteps = participant.decreaseCommitmentSteps(1);
-        
-        // Update state and corresponding commitment/scoring fields
-        if (validRequest)
-        {            
-            // Check whether next movement involves reaching an item
-            if (currentMap.isItemPosition(newPosition))
+            ACLMessage msg = myAgent.blockingReceive(mt, remaining);
+            if (msg == null)
+                break;
+
+            // late answers to previous rounds do not match any pending request and are dropped
+            Participant participant = pending.remove(msg.getInReplyTo());
+            if (participant != null)
             {
-                // Score point
-                participant.increaseItemCounter(1);
-
-                // Participant is always informed about having scored the item,
-                // (to avoid risk of getting trapped in local minima)
-                // but full updated map (i.e. currentMap) will only be shared
-                // according to its "commitment counter"
-                participant.getSimulationState().getMap().clearPosition(newPosition);
-
-                // Update simulator's map (remove item, generate new)
-                currentMap.clearPosition(newPosition);
-                currentMap.generateNewItem();
-
-            } else {
-
-                // valid movement other than to item position
-                if (currentMap.isTrapPosition(newPosition))
-                {
-                    participant.increaseTrapCounter(1);
-
-                    // It remains trapped
-                    newPosition = participant.getSimulationState().getPosition();
-                }
-
-                // otherwise "newPosition" involves valid movement toward empty position
-
-                // regardless, an agent with unupdated map (e.g. because high commitment)
-                // might still "believe" there is some item there
-                // hence we try to communicate that, again to avoid risk of getting
-                // trapped in local minima
-                if (participant.getSimulationState().getMap().isItemPosition(newPosition))
-                    participant.getSimulationState().getMap().clearPosition(newPosition);
+                engine().getMetrics().proposal(participant).record(System.nanoTime() - sent);
+                proposals.put(participant, msg);
             }
         }
-        else 
+
+        for(Participant participant : participants)
         {
-            // invalid position, it remains where it is
-            newPosition = participant.getSimulationState().getPosition();
+            ACLMessage msg = proposals.get(participant);
+            if (msg != null)
+                handleProposal(msg, participant);
         }
-        // check if fully updated version of the map needs to be provided
-        if (remainingCommitmentSteps == 0)
-        {
-            try {
-                newState = new SimulationState((Map) currentMap.clone(), newPosition);
-            } catch (Exception e)
-            {
-                e.printStackTrace();
-            }
+    }
 
-            // Restart commitment counter
-            participant.resetCommitmentSteps();
-        }
-        else {
-            // New position but with "unupdated" map
-            newState = new SimulationState(participant.getSimulationState().getMap(), newPosition);
-        }
-        
-        // Store new participant's state
-        participant.updateState(newState);
+    private ACLMessage createActionRequest(Participant participant, String replyWith)
+    {
+        ACLMessage reqp = new ACLMessage(ACLMessage.REQUEST);
         
-        return newState;
+        reqp.setSender(myAgent.getAID());
+        reqp.setConversationId("request-action");
+        reqp.setReplyWith(replyWith);
+        reqp.addReceiver(participant.getAID());
+        if (((SimulatorAgent)myAgent).useBinaryCodec())
+            reqp.setLanguage(StateCodec.LANGUAGE); // participants answer using the same encoding
+
+        return reqp;
     }
 
-    private boolean isValidMovement(Position pos, boolean avoidTraps)
+    /* Processes the movement proposed by a participant and sends back its updated state */
+    private void handleProposal(ACLMessage msg, Participant participant)
     {
-        boolean valid = true;
+        // Process action
+        try {
+            SimulationMetrics metrics = engine().getMetrics();
+            long start = System.nanoTime();
+            Position requestedPosition = (Position)StateCodec.readContent(msg);
+            metrics.decode().record(System.nanoTime() - start);
+        
+            // Check if valid, process action, and calculate new participant state
+            Serializable stateUpdate = engine().processAction(requestedPosition, participant);
 
-        valid &= ((SimulatorAgent)myAgent).getCurrentMap().withinMapLimits(pos);
-        if (avoidTraps)
-            valid &= !((SimulatorAgent)myAgent).getCurrentMap().isTrapPosition(pos);
+            // Return state
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setConversationId("update-state");
             
-        return valid;
+            // setContent() and setContentObject both write to the same field of the ACLMessage
+            // hence no possible to set both of them separatedly
+            start = System.nanoTime();
+            StateCodec.writeContent(reply, stateUpdate, ((SimulatorAgent)myAgent).useBinaryCodec());
+            metrics.encode().record(System.nanoTime() - start);
+            byte[] content = reply.getByteSequenceContent();
+            if (content != null)
+                metrics.updateSize().record(content.length);
+            myAgent.send(reply);
+        } catch (Exception e)
+        {
+            Log.error("Unable to handle the proposal of " + participant.getAID().getLocalName(), e);
+        }        
+    }
+
+    private SimulationEngine engine()
+    {
+        return ((SimulatorAgent)myAgent).getEngine();
+    }
+
+    public boolean done() {
+        return ((SimulatorAgent)myAgent).simulationComplete();
+    }
+
+    @Override
+    public int onEnd() {
+        ((SimulatorAgent)myAgent).endSimulation();
+        return super.onEnd();
     }
 }
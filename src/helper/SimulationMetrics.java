@@ -0,0 +1,91 @@
+package helper;
+
+import java.util.LinkedHashMap;
+
+/* Where the time of a simulation goes, as histograms recorded while it runs:
+   - round: whole rounds, from the first request to the map update
+   - proposal, per participant: from asking for an action to having it (the request/propose
+     round trip with JADE, the DecisionMaker call in HeadlessSimulation)
+   - processAction: resolution of a proposed action by the SimulationEngine
+   - redistribution: redistributions of the map
+   - encode/decode and update size: state updates written for participants and proposals read
+   Times are in nanoseconds and sizes in bytes. Recording is cheap enough to be always on,
+   and report() can be called at any point of the simulation */
+public class SimulationMetrics {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final Histogram round = new Histogram();
+    private final Histogram processAction = new Histogram();
+    private final Histogram redistribution = new Histogram();
+    private final Histogram encode = new Histogram();
+    private final Histogram decode = new Histogram();
+    private final Histogram updateSize = new Histogram();
+    private final LinkedHashMap<String, Histogram> proposals = new LinkedHashMap<String, Histogram>();
+
+    public Histogram round()
+    {
+        return round;
+    }
+
+    public Histogram processAction()
+    {
+        return processAction;
+    }
+
+    public Histogram redistribution()
+    {
+        return redistribution;
+    }
+
+    public Histogram encode()
+    {
+        return encode;
+    }
+
+    public Histogram decode()
+    {
+        return decode;
+    }
+
+    public Histogram updateSize()
+    {
+        return updateSize;
+    }
+
+    public Histogram proposal(Participant participant)
+    {
+        return proposals.computeIfAbsent(participant.getAID().getLocalName(), name -> new Histogram());
+    }
+
+    /* Table with the count, mean, percentiles and maximum of every histogram that has values */
+    public String report()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-24s %8s %10s", "metric", "count", "mean"));
+        for (double percentile : PERCENTILES)
+            report.append(String.format(" %10s", "p" + (percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile))));
+        report.append(String.format(" %10s%n", "max"));
+
+        append(report, "round (us)", round, 1000);
+        for (java.util.Map.Entry<String, Histogram> proposal : proposals.entrySet())
+            append(report, "proposal " + proposal.getKey() + " (us)", proposal.getValue(), 1000);
+        append(report, "processAction (us)", processAction, 1000);
+        append(report, "redistribution (us)", redistribution, 1000);
+        append(report, "encode (us)", encode, 1000);
+        append(report, "decode (us)", decode, 1000);
+        append(report, "update size (bytes)", updateSize, 1);
+        return report.toString();
+    }
+
+    private static void append(StringBuilder report, String name, Histogram histogram, double unit)
+    {
+        if (histogram.getCount() == 0)
+            return;
+
+        report.append(String.format("%-24s %8d %10.1f", name, histogram.getCount(), histogram.getMean() / unit));
+        for (double percentile : PERCENTILES)
+            report.append(String.format(" %10.1f", histogram.getPercentile(percentile) / unit));
+        report.append(String.format(" %10.1f%n", histogram.getMax() / unit));
+    }
+}
@@ -0,0 +1,66 @@
+package helper;
+
+import java.util.Random;
+
+/* Random generators of one simulation, all derived from its seed. Each use gets its own
+   independent stream (map generation, redistributions, every participant) so that none of them
+   shifts the numbers another one sees, and asking for a stream again starts it over.
+   Participants' streams are keyed by their name rather than by the order in which they join,
+   so a participant plays the same way in JADE and in HeadlessSimulation */
+public class SimulationRandom {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final long MAP_GENERATION = 0;
+    private static final long REDISTRIBUTION = 1;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+
+    public SimulationRandom(long seed)
+    {
+        this.seed = seed;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /* Items and traps of the initial map */
+    public Random mapGeneration()
+    {
+        return stream(MAP_GENERATION);
+    }
+
+    /* Items and traps placed while the simulation runs: redistributions and replacements of collected items */
+    public Random redistribution()
+    {
+        return stream(REDISTRIBUTION);
+    }
+
+    /* Decisions of the participant with the given (local) name */
+    public Random participant(String name)
+    {
+        return stream(2 + (name.hashCode() & 0xFFFFFFFFL));
+    }
+
+    /* Initial position of the participant with the given (local) name, whatever the order they join in */
+    public Random initialPosition(String name)
+    {
+        return stream(-2 - (name.hashCode() & 0xFFFFFFFFL));
+    }
+
+    private Random stream(long stream)
+    {
+        return new Random(mix(seed + GOLDEN_GAMMA * (stream + 1)));
+    }
+
+    /* SplitMix64 finalizer: neighbouring inputs give unrelated outputs */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
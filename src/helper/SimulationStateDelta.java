@@ -0,0 +1,56 @@
+package helper;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+
+/* Incremental "update-state" content: the participant's new position plus the cells
+   that were cleared in its (possibly stale) map since the previous update.
+   The simulator only sends a full SimulationState on join and when the participant's
+   commitment counter runs out; every other turn it sends one of these */
+public class SimulationStateDelta implements Serializable {
+
+    private Position _position;
+    private LinkedList<Position> _clearedPositions;
+
+    public SimulationStateDelta(Position position, LinkedList<Position> clearedPositions)
+    {
+        _position = position;
+        _clearedPositions = clearedPositions;
+    }
+
+    public Position getPosition()
+    {
+        return _position;
+    }
+
+    public LinkedList<Position> getClearedPositions()
+    {
+        return _clearedPositions;
+    }
+
+    /* Applies this delta on the participant's local state, returning the resulting state.
+       The local map is updated in place */
+    public SimulationState applyTo(SimulationState localState)
+    {
+        Map localMap = localState.getMap();
+        for (Position pos : _clearedPositions)
+            localMap.clearPosition(pos);
+
+        return new SimulationState(localMap, _position);
+    }
+
+    /* Returns the participant's state after receiving the content of an "update-state" message,
+       which is either a full SimulationState or a SimulationStateDelta */
+    public static SimulationState applyUpdate(SimulationState localState, Object update)
+    {
+        if (update instanceof SimulationStateDelta)
+            return ((SimulationStateDelta) update).applyTo(localState);
+
+        return (SimulationState) update;
+    }
+
+    @Override
+    public String toString() {
+        return "Delta: " + _position.toString() + " cleared " + _clearedPositions.toString();
+    }
+}
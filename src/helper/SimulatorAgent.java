@@ -1,7 +1,6 @@
 package helper;
 import jade.core.AID;
 import jade.core.Agent;
-import jade.core.behaviours.TickerBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
@@ -9,56 +8,46 @@ import jade.lang.acl.ACLMessage;
 import jade.wrapper.ControllerException;
 import jade.domain.FIPAException;
 
+import java.io.IOException;
 import java.util.LinkedList;
 
+import config.SimulationConfig;
+
 public class SimulatorAgent extends Agent {
+
+    // User-defined parameter of the join agreement carrying the simulation's seed
+    public static final String SEED_PARAMETER = "simulation-seed";
+    // Conversation of QUERY_REF messages asking for the latencies measured so far (see SimulationMetrics)
+    public static final String METRICS_CONVERSATION = "simulation-metrics";
     
-    private LinkedList<Participant> participants;
-    private Map _map;
-    
-    // Map parameters
-    int mapSize = 10;
-    int numItems = 5;
-    int numTraps = 0;
-    
-    // Simulation parameters
-    int numParticipants = 1;
-    int numSimRounds = 1000;
-    int numStepsMapReDist = 9999; // If equals numSimRounds, implies no map rescheduling
+    private SimulationConfig config;
+    private SimulationEngine engine; // map, participants and rules of the simulation
+    private ResultsWriter results; // results and round files, when asked for
+    private long simulationStart;
     
     // Simulation state
     public boolean simulationStarted = false;
-    int roundCount = 0;
 
     @Override
     protected void setup() {
-        System.out.println("Starting setup of simulator agent...");
+        Log.info("Starting setup of simulator agent...");
 
-                Object[] args = getArguments();
-        if (args != null && args.length >= 1) {
-            try { numTraps           = Integer.parseInt((String) args[0]); } catch (Exception e) {}
-        }
-        if (args != null && args.length >= 2) {
-            try { numStepsMapReDist  = Integer.parseInt((String) args[1]); } catch (Exception e) {}
-        }
-        if (args != null && args.length >= 3) {
-            try { numParticipants    = Integer.parseInt((String) args[2]); } catch (Exception e) {}
-        }
-        if (args != null && args.length >= 4) {
-            try {
-                config.Config.SEED     = Long.parseLong((String) args[3]);
-                config.Config.USE_SEED = true;
-                System.out.println("Using seed: " + config.Config.SEED);
-            } catch (Exception e) {}
-        }
+        config = SimulationConfig.fromArguments(getArguments());
         
         // Initialize map according to parameters
         try{
-            _map = new Map(mapSize, mapSize, numItems, numTraps);
+            engine = new SimulationEngine(config);
         } catch(Exception e) {
-            e.printStackTrace();
+            Log.error("Unable to create the simulation", e);
+        }
+        if (Log.isEnabled(Log.Level.INFO))
+            Log.info("%s", engine.getCurrentMap().describe().stripTrailing());
+
+        try {
+            results = new ResultsWriter(config);
+        } catch (IOException e) {
+            Log.error("Unable to open the results files", e);
         }
-        _map.show();
         
         // Register in Service Facilitator (yellow pages)
         DFAgentDescription dfd = new DFAgentDescription();
@@ -70,67 +59,70 @@ public class SimulatorAgent extends Agent {
         try {
             DFService.register(this, dfd);
         } catch (FIPAException e) {
-            e.printStackTrace();
+            Log.error("Unable to register the simulation service", e);
         }
 
-        // Start behaviour to register participants
-        participants = new LinkedList<Participant>();
-        
+        // Start behaviour to register participants, the simulation starts as soon as the last one joins
         addBehaviour(new RegisterParticipantsBehaviour());
+    }
 
-        // Main control behaviour
-        addBehaviour(new TickerBehaviour(this, 10000) {
-            protected void onTick(){
-                
-                // Check if game needs to end
-                if (simulationComplete())
-                {
-                    System.out.println(getAID().getLocalName()+": SIMULATION ENDED!!!");
-
-                    // Comunicate simulation has ended to all participants and show final results
-                    for(Participant participant : participants)
-                    {
-                        // Ask movement
-                        ACLMessage reqp = new ACLMessage(ACLMessage.INFORM);
-                        reqp.setSender(myAgent.getAID());
-                        reqp.setConversationId("simulation-complete");
-                        reqp.addReceiver(participant.getAID());
-                        send(reqp);
-                    }
-
-                    showOverallState();
-
-                    
-                    try {
-                        myAgent.getContainerController().getPlatformController().kill(); // kill the whole platform
-                        return;
-                    } catch (final ControllerException e) {
-                    }
-                    doDelete();
-                }
-                
-                // Either simulation running or not started
-                
-                // Check if game can be started
-                if (participantsComplete() & !simulationStarted)
-                {
-                    System.out.println(getAID().getLocalName()+": SIMULATION CAN START!!!");
-
-                    simulationStarted = true;
-                    
-                    addBehaviour(new SimulationManagerBehaviour());
-                    
-                } else
-                {
-                    if (!simulationStarted)
-                        System.out.printf("\n%s %d / %d registered participants, waiting for more to join...", 
-                            getAID().getLocalName(), participants.size(), numParticipants);
-                    
-                    // else simulation is running but not yet complet, do nothing 
-                }
-            }
-        }); // end ticker behaviour
+    /* Called by RegisterParticipantsBehaviour after admitting a participant */
+    public void participantJoined()
+    {
+        if (simulationStarted)
+            return;
+
+        if (participantsComplete())
+        {
+            Log.info("%s: SIMULATION CAN START!!!", getAID().getLocalName());
+
+            simulationStarted = true;
+            engine.orderParticipants();
+            simulationStart = System.nanoTime();
 
+            addBehaviour(new SimulationManagerBehaviour());
+        } else {
+            Log.info("\n%s %d / %d registered participants, waiting for more to join...",
+                getAID().getLocalName(), getParticipants().size(), config.numParticipants);
+        }
+    }
+
+    /* Called by SimulationManagerBehaviour once the last round has been played */
+    public void endSimulation()
+    {
+        Log.info("%s: SIMULATION ENDED!!!", getAID().getLocalName());
+
+        // Comunicate simulation has ended to all participants and show final results
+        for(Participant participant : getParticipants())
+        {
+            ACLMessage reqp = new ACLMessage(ACLMessage.INFORM);
+            reqp.setSender(getAID());
+            reqp.setConversationId("simulation-complete");
+            reqp.addReceiver(participant.getAID());
+            send(reqp);
+        }
+
+        showOverallState();
+        if (Log.isEnabled(Log.Level.INFO))
+            Log.info("\nLatencies:%n%s", engine.getMetrics().report().stripTrailing());
+
+        try {
+            if (results != null)
+                results.simulationEnded(engine, System.nanoTime() - simulationStart);
+        } catch (IOException e) {
+            Log.error("Unable to write the results", e);
+        }
+
+        // Killing the platform waits for every agent to terminate, this one included,
+        // so it cannot be done from this agent's own thread
+        new Thread(() -> {
+            Log.flush();
+            try {
+                getContainerController().getPlatformController().kill(); // kill the whole platform
+            } catch (final ControllerException e) {
+                doDelete();
+            }
+        }).start();
     }
 
     @Override
@@ -140,82 +132,79 @@ public class SimulatorAgent extends Agent {
         try {
             DFService.deregister(this);
         } catch (FIPAException e) {
-            e.printStackTrace();
+            Log.error("Unable to deregister the simulation service", e);
         }
     }
 
+    /* Replies with the current latency report as plain text */
+    public void answerMetricsQuery(ACLMessage query)
+    {
+        ACLMessage reply = query.createReply();
+        reply.setPerformative(ACLMessage.INFORM);
+        reply.setContent(engine.getMetrics().report());
+        send(reply);
+    }
+
+    /* Called by SimulationManagerBehaviour after each round, with the time it took */
+    public void roundEnded(long roundNanos)
+    {
+        try {
+            if (results != null)
+                results.roundEnded(engine, roundNanos);
+        } catch (IOException e) {
+            Log.error("Unable to write the round log", e);
+        }
+    }
+
+    public SimulationEngine getEngine()
+    {
+        return engine;
+    }
+
     public Map getCurrentMap()
     {
-        return _map;
+        return engine.getCurrentMap();
     }
 
     public LinkedList<Participant> getParticipants()
     {
-        return participants;
+        return engine.getParticipants();
     }
 
-    public boolean participantsComplete()
+    public boolean useBinaryCodec()
     {
-        return participants.size() == numParticipants;
+        return config.binaryCodec;
     }
 
-    public boolean simulationComplete()
+    public long getSeed()
     {
-        return roundCount == numSimRounds;
+        return config.seed;
     }
 
-    public void checkMapMustChange()
+    public boolean useConcurrentProposals()
     {
-        if (roundCount % numStepsMapReDist == 0)
-        {
-            _map.redistributeMap();
-            System.out.println("MAP RESCHEDULING!!");
-        }
+        return config.concurrentProposals;
+    }
+
+    public boolean participantsComplete()
+    {
+        return getParticipants().size() == config.numParticipants;
+    }
+
+    public boolean simulationComplete()
+    {
+        return engine.simulationComplete();
     }
 
     // Used when accepting a participant to join the simulation (waiting to start)
     // It returns its initial SimulationState to be communicated to the accepted participant
     public SimulationState addParticipant(AID agentAID, int agentCommitment)
     {
-        SimulationState initialState = null;
-        try {
-            initialState = new SimulationState((Map)_map.clone(), _map.searchRandomEmtpyPosition());
-        } catch (Exception e)
-        {
-            e.printStackTrace();
-        }
-        participants.add(new Participant(agentAID, initialState, agentCommitment));
-        
-        return initialState;
+        return engine.addParticipant(agentAID, agentCommitment);
     }
 
     public void showOverallState()
     {
-        // Retrieve participant's positions
-        LinkedList<Position> posToHighlight = new LinkedList<>();
-        for(Participant participant : participants)
-        {
-            posToHighlight.add(participant.getSimulationState().getPosition());
-        }
-        
-        // SimulatorAgent's simulation state
-        // System.out.println("\nSimulator's agent status:");
-        // System.out.print(_map.toString(posToHighlight));
-        //_map.show(); // map with no highlighted participant's position
-        
-        // Show each participant's simulation state
-        System.out.println("\nParticipant's status:");
-        for(Participant participant : participants)
-        {
-            System.out.print(participant.toString());
-        } 
-        
-        // debug: wait pressing enter to continue
-        /*try {
-            System.in.read();
-        } catch (Exception e)
-        {
-            e.printStackTrace();
-        }*/
+        engine.showOverallState();
     }
 }
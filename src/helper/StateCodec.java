@@ -0,0 +1,258 @@
+package helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.LinkedList;
+
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.UnreadableException;
+
+/* Compact binary encoding for the Position, SimulationState and SimulationStateDelta
+   payloads exchanged between the simulator and the participants.
+
+   Messages encoded this way carry LANGUAGE as their ACL language and the bytes as
+   byte sequence content; any other message keeps using Java serialization through
+   setContentObject/getContentObject, so both encodings can be mixed freely.
+
+   Layout (all integers are unsigned LEB128 varints, coordinates are zigzag encoded):
+     POSITION: tag, x, y
+     STATE:    tag, rows, cols, numItems, numTraps, grid, position
+               grid is either GRID_SPARSE + item/trap cell ids (count then gaps between ids)
+               or GRID_PACKED + the whole grid at 2 bits per cell, whichever is shorter
+     DELTA:    tag, position, count, cleared positions */
+public class StateCodec {
+
+    public static final String LANGUAGE = "item-world-binary";
+
+    private static final byte TAG_POSITION = 1;
+    private static final byte TAG_STATE = 2;
+    private static final byte TAG_DELTA = 3;
+
+    private static final byte GRID_SPARSE = 0;
+    private static final byte GRID_PACKED = 1;
+
+    /* Sets "content" as the message content, binary encoded or Java serialized */
+    public static void writeContent(ACLMessage msg, Serializable content, boolean binary) throws IOException
+    {
+        if (binary)
+        {
+            msg.setLanguage(LANGUAGE);
+            msg.setByteSequenceContent(encode(content));
+        } else {
+            msg.setContentObject(content);
+        }
+    }
+
+    /* Reads the content of a message written by writeContent, whatever its encoding */
+    public static Object readContent(ACLMessage msg) throws UnreadableException
+    {
+        if (isBinary(msg))
+            return decode(msg.getByteSequenceContent());
+
+        return msg.getContentObject();
+    }
+
+    /* Whether the message (or the message it replies to, as createReply copies the language) uses this codec */
+    public static boolean isBinary(ACLMessage msg)
+    {
+        return LANGUAGE.equals(msg.getLanguage());
+    }
+
+    public static byte[] encode(Object content)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        if (content instanceof Position)
+        {
+            out.write(TAG_POSITION);
+            writePosition(out, (Position) content);
+        } else if (content instanceof SimulationState) {
+            out.write(TAG_STATE);
+            writeState(out, (SimulationState) content);
+        } else if (content instanceof SimulationStateDelta) {
+            SimulationStateDelta delta = (SimulationStateDelta) content;
+            out.write(TAG_DELTA);
+            writePosition(out, delta.getPosition());
+            writePositions(out, delta.getClearedPositions());
+        } else {
+            throw new IllegalArgumentException("No binary encoding for " + content.getClass().getName());
+        }
+
+        return out.toByteArray();
+    }
+
+    public static Object decode(byte[] bytes)
+    {
+        Reader in = new Reader(bytes);
+
+        switch (in.readByte())
+        {
+            case TAG_POSITION:
+                return readPosition(in);
+            case TAG_STATE:
+                return readState(in);
+            case TAG_DELTA:
+                Position position = readPosition(in);
+                return new SimulationStateDelta(position, readPositions(in));
+            default:
+                throw new IllegalArgumentException("Unknown binary content tag");
+        }
+    }
+
+    private static void writeState(ByteArrayOutputStream out, SimulationState state)
+    {
+        Map map = state.getMap();
+        int numCols = map.getNumCols();
+        int numCells = map.getNumRows() * numCols;
+
+        writeVarint(out, map.getNumRows());
+        writeVarint(out, numCols);
+        writeVarint(out, map.getNumItems());
+        writeVarint(out, map.getNumTraps());
+
+        ByteArrayOutputStream sparse = new ByteArrayOutputStream();
+        writeCellIds(sparse, map.getItemPositions(), numCols);
+        writeCellIds(sparse, map.getTrapsPositions(), numCols);
+
+        int packedSize = (numCells + 3) / 4;
+        if (sparse.size() <= packedSize)
+        {
+            out.write(GRID_SPARSE);
+            out.write(sparse.toByteArray(), 0, sparse.size());
+        } else {
+            out.write(GRID_PACKED);
+            byte[] packed = new byte[packedSize];
+            for (int cell = 0; cell < numCells; cell++)
+                packed[cell >>> 2] |= map.getCell(cell) << ((cell & 3) << 1);
+            out.write(packed, 0, packed.length);
+        }
+
+        writePosition(out, state.getPosition());
+    }
+
+    private static SimulationState readState(Reader in)
+    {
+        int numRows = in.readVarint();
+        int numCols = in.readVarint();
+        Map map = Map.emptyMap(numRows, numCols, in.readVarint(), in.readVarint());
+
+        if (in.readByte() == GRID_SPARSE)
+        {
+            readCellIds(in, map, 1);
+            readCellIds(in, map, 2);
+        } else {
+            int numCells = numRows * numCols;
+            int offset = in.skip((numCells + 3) / 4);
+            for (int cell = 0; cell < numCells; cell++)
+            {
+                int value = (in.bytes[offset + (cell >>> 2)] >>> ((cell & 3) << 1)) & 3;
+                if (value != 0)
+                    map.setCell(cell / numCols, cell % numCols, value);
+            }
+        }
+
+        return new SimulationState(map, readPosition(in));
+    }
+
+    /* Positions come in row-major order, so each cell id is written as the gap from the previous one */
+    private static void writeCellIds(ByteArrayOutputStream out, LinkedList<Position> positions, int numCols)
+    {
+        writeVarint(out, positions.size());
+        int previous = 0;
+        for (Position pos : positions)
+        {
+            int cell = pos.x * numCols + pos.y;
+            writeVarint(out, cell - previous);
+            previous = cell;
+        }
+    }
+
+    private static void readCellIds(Reader in, Map map, int value)
+    {
+        int count = in.readVarint();
+        int cell = 0;
+        for (int k = 0; k < count; k++)
+        {
+            cell += in.readVarint();
+            map.setCell(cell / map.getNumCols(), cell % map.getNumCols(), value);
+        }
+    }
+
+    private static void writePositions(ByteArrayOutputStream out, LinkedList<Position> positions)
+    {
+        writeVarint(out, positions.size());
+        for (Position pos : positions)
+            writePosition(out, pos);
+    }
+
+    private static LinkedList<Position> readPositions(Reader in)
+    {
+        LinkedList<Position> positions = new LinkedList<Position>();
+        int count = in.readVarint();
+        for (int k = 0; k < count; k++)
+            positions.add(readPosition(in));
+
+        return positions;
+    }
+
+    private static void writePosition(ByteArrayOutputStream out, Position pos)
+    {
+        // zigzag, so that out of the map proposals (e.g. -1) still take a single byte
+        writeVarint(out, (pos.x << 1) ^ (pos.x >> 31));
+        writeVarint(out, (pos.y << 1) ^ (pos.y >> 31));
+    }
+
+    private static Position readPosition(Reader in)
+    {
+        int x = in.readVarint();
+        int y = in.readVarint();
+        return new Position((x >>> 1) ^ -(x & 1), (y >>> 1) ^ -(y & 1));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static class Reader {
+        final byte[] bytes;
+        int pos = 0;
+
+        Reader(byte[] bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        byte readByte()
+        {
+            return bytes[pos++];
+        }
+
+        int readVarint()
+        {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        /* Skips "length" bytes, returning the offset where they start */
+        int skip(int length)
+        {
+            int start = pos;
+            pos += length;
+            return start;
+        }
+    }
+}